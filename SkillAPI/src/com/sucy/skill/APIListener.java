@@ -5,6 +5,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.Status;
 import com.sucy.skill.api.StatusHolder;
 import com.sucy.skill.api.event.*;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.skill.ClassSkill;
 import com.sucy.skill.api.skill.PassiveSkill;
 import com.sucy.skill.language.StatusNodes;
@@ -113,7 +114,7 @@ public class APIListener implements Listener {
         }
 
         // Player class damage
-        if (damager instanceof Player && PlayerSkills.skillsBeingCast.isEmpty()) {
+        if (damager instanceof Player && CastContext.current() == null) {
 
             Player p = (Player)damager;
 
@@ -261,7 +262,7 @@ public class APIListener implements Listener {
             if (damaged == null || damager == null) return;
 
             AttackType type;
-            if (PlayerSkills.skillsBeingCast.size() > 0) type = AttackType.SKILL;
+            if (CastContext.getCurrentSkill() != null) type = AttackType.SKILL;
             else if (event.getCause() == EntityDamageEvent.DamageCause.ENTITY_ATTACK) type = AttackType.MELEE;
             else type = AttackType.PROJECTILE;
 
@@ -286,7 +287,7 @@ public class APIListener implements Listener {
 
                 // Call an event when a player's skill dealt damage
                 if (type == AttackType.SKILL) {
-                    PlayerOnSkillHitEvent she = new PlayerOnSkillHitEvent(p, damaged, PlayerSkills.skillsBeingCast.peek().getName(), event.getDamage());
+                    PlayerOnSkillHitEvent she = new PlayerOnSkillHitEvent(p, damaged, CastContext.getCurrentSkill().getName(), event.getDamage());
                     plugin.getServer().getPluginManager().callEvent(she);
                     event.setDamage(she.getDamage());
                 }
@@ -462,14 +463,16 @@ public class APIListener implements Listener {
                 // If they clicked on a skill, try upgrading it
                 if (tree.isSkill(event.getSlot())) {
                     PlayerSkills player = plugin.getPlayer(event.getWhoClicked().getName());
+                    ClassSkill skill = tree.getSkill(event.getSlot());
+                    int points = player.getPoints();
                     if (event.isLeftClick()) {
-                        if (player.upgradeSkill(tree.getSkill(event.getSlot()))) {
-                            tree.update(event.getInventory(), player);
+                        if (player.upgradeSkill(skill)) {
+                            tree.update(event.getInventory(), player, skill, points);
                         }
                     }
                     else if (event.isRightClick()) {
-                        if (player.downgradeSkill(tree.getSkill(event.getSlot()))) {
-                            tree.update(event.getInventory(), player);
+                        if (player.downgradeSkill(skill)) {
+                            tree.update(event.getInventory(), player, skill, points);
                         }
                     }
                 }
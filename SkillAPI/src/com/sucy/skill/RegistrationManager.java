@@ -40,6 +40,9 @@ public class RegistrationManager {
     // Register mode
     private RegisterMode mode = RegisterMode.DONE;
 
+    // Id of the next registered skill
+    private int nextSkillId;
+
     /**
      * <p>Constructor</p>
      * <p>Do not use this</p>
@@ -72,7 +75,9 @@ public class RegistrationManager {
         // Load dynamic skills
         for (String key : skillConfig.getConfig().getKeys(false)) {
             if (!skills.containsKey(key.toLowerCase())) {
-                skills.put(key.toLowerCase(), new DynamicSkill(key));
+                DynamicSkill skill = new DynamicSkill(key);
+                skill.setId(nextSkillId++);
+                skills.put(key.toLowerCase(), skill);
             }
         }
 
@@ -116,6 +121,11 @@ public class RegistrationManager {
             else tree.update(new Config(api, "class" + File.separator + tree.getName()).getConfig());
         }
 
+        // Flatten inherited skills now that all classes are loaded
+        for (CustomClass tree : classes.values()) {
+            tree.compileSkills();
+        }
+
         // Arrange skill trees
         List<CustomClass> classList = new ArrayList<CustomClass>(this.classes.values());
         for (CustomClass tree : classList) {
@@ -152,6 +162,7 @@ public class RegistrationManager {
     public void clearData() {
         skills.clear();
         classes.clear();
+        nextSkillId = 0;
     }
 
     /**
@@ -218,6 +229,7 @@ public class RegistrationManager {
             }
 
             // Add it to the list
+            skill.setId(nextSkillId++);
             skills.put(skill.getName().toLowerCase(), skill);
             configFile.saveConfig();
 
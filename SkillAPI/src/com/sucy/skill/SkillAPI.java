@@ -1,24 +1,40 @@
 package com.sucy.skill;
 
 import com.sucy.skill.api.CustomClass;
+import com.sucy.skill.api.LeaderboardEntry;
+import com.sucy.skill.api.OfflinePlayerSummary;
 import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.StatusHolder;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Mechanic;
 import com.sucy.skill.api.skill.ClassSkill;
+import com.sucy.skill.api.util.Protection;
+import com.sucy.skill.api.util.SpatialIndex;
+import com.sucy.skill.api.util.TargetHelper;
 import com.sucy.skill.api.util.TextSizer;
 import com.sucy.skill.api.util.effects.DOTHelper;
 import com.sucy.skill.api.util.effects.ParticleHelper;
 import com.sucy.skill.click.ClickListener;
 import com.sucy.skill.command.ClassCommander;
 import com.sucy.skill.config.Config;
-import com.sucy.skill.config.PlayerValues;
 import com.sucy.skill.config.SettingValues;
+import com.sucy.skill.data.Leaderboard;
+import com.sucy.skill.data.OfflinePlayerCache;
+import com.sucy.skill.data.PlayerDataStore;
+import com.sucy.skill.data.PlayerIndex;
+import com.sucy.skill.data.PlayerPrefetcher;
+import com.sucy.skill.data.PlayerSnapshot;
+import com.sucy.skill.data.ProgressJournal;
+import com.sucy.skill.data.SQLDataStore;
+import com.sucy.skill.data.WriteBehindQueue;
+import com.sucy.skill.data.YamlDataStore;
 import com.sucy.skill.language.OtherNodes;
 import com.sucy.skill.mccore.CoreChecker;
 import com.sucy.skill.mccore.PrefixManager;
+import com.sucy.skill.task.AutoSaveTask;
 import com.sucy.skill.task.InventoryTask;
 import com.sucy.skill.task.ManaTask;
+import com.sucy.skill.task.TickCounter;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
@@ -28,10 +44,17 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,21 +69,38 @@ import java.util.regex.Pattern;
  */
 public class SkillAPI extends JavaPlugin {
 
+    /**
+     * <p>Message players are kicked with when their data couldn't be loaded</p>
+     * <p>This is for the API use only. You should not use this field.</p>
+     */
+    public static final String LOAD_FAILED_MESSAGE = "Your class data could not be loaded, please try again later";
+
     // Data
-    private final Hashtable<String, PlayerSkills> players = new Hashtable<String, PlayerSkills>();
+    private final ConcurrentHashMap<UUID, PlayerSkills> onlinePlayers = new ConcurrentHashMap<UUID, PlayerSkills>();
+    private final ConcurrentHashMap<String, UUID> onlineIds = new ConcurrentHashMap<String, UUID>();
+    private final ConcurrentHashMap<String, ParkedCooldowns> parkedCooldowns = new ConcurrentHashMap<String, ParkedCooldowns>();
     private final Hashtable<String, Integer> exp = new Hashtable<String, Integer>();
     private final HashMap<Integer, StatusHolder> holders = new HashMap<Integer, StatusHolder>();
 
     // Utility
     private RegistrationManager registration;
     private DOTHelper dotHelper;
+    private SpatialIndex spatialIndex;
+    private PlayerDataStore playerStore;
+    private WriteBehindQueue playerWriter;
+    private ProgressJournal journal;
+    private OfflinePlayerCache offlinePlayers;
+    private PlayerPrefetcher prefetcher;
+    private Leaderboard leaderboard;
+    private PlayerIndex playerIndex;
 
     // Tasks
     private InventoryTask invTask;
     private ManaTask manaTask;
+    private AutoSaveTask saveTask;
+    private TickCounter tickCounter;
 
     // Configurations
-    private Config playerConfig;
     private Config languageConfig;
 
     // Settings
@@ -74,6 +114,7 @@ public class SkillAPI extends JavaPlugin {
     private boolean blockSpawnerExp;
     private boolean blockEggExp;
     private boolean blockCreativeExp;
+    private boolean lazyLoading;
     private int startingPoints;
     private int pointsPerLevel;
     private int messageRadius;
@@ -92,7 +133,6 @@ public class SkillAPI extends JavaPlugin {
     public void onEnable() {
 
         reloadConfig();
-        playerConfig = new Config(this, "players");
         languageConfig = new Config(this, "language");
         languageConfig.saveDefaultConfig();
         BukkitHelper.initialize();
@@ -119,6 +159,7 @@ public class SkillAPI extends JavaPlugin {
         blockCreativeExp = getConfig().getBoolean(SettingValues.BLOCK_CREATIVE_EXP.path(), true);
         expOrbs = getConfig().getBoolean(SettingValues.USE_EXP_ORBS.path(), false);
         messageRadius = getConfig().getInt(SettingValues.SKILL_MESSAGE_RADIUS.path(), 20);
+        lazyLoading = getConfig().getBoolean(SettingValues.LAZY_LOADING.path(), true);
 
         // Experience formula
         ConfigurationSection formula = getConfig().getConfigurationSection(SettingValues.EXP_FORMULA.path());
@@ -131,6 +172,10 @@ public class SkillAPI extends JavaPlugin {
         registration = new RegistrationManager(this);
         registration.initialize();
 
+        // Count ticks for timing checks
+        tickCounter = new TickCounter(this);
+        Protection.initialize(tickCounter);
+
         // Set up the mana task
         int manaFreq = getConfig().getInt(SettingValues.MANA_GAIN_FREQ.path());
         int manaGain = getConfig().getInt(SettingValues.MANA_GAIN_AMOUNT.path());
@@ -146,19 +191,88 @@ public class SkillAPI extends JavaPlugin {
             exp.put(mob, section.getInt(mob));
         }
 
-        // Load player data
-        if (playerConfig.getConfig().contains(PlayerValues.ROOT) && playerConfig.getConfig().getConfigurationSection(PlayerValues.ROOT).getKeys(false) != null) {
-            for (String player : playerConfig.getConfig().getConfigurationSection(PlayerValues.ROOT).getKeys(false)) {
-                PlayerSkills data = new PlayerSkills(this, player, playerConfig.getConfig().getConfigurationSection(PlayerValues.ROOT + "." + player));
-                players.put(player.toLowerCase(), data);
-                data.updateHealth();
+        // Set up player data storage, moving over data from the old single file
+        YamlDataStore yamlStore = new YamlDataStore(this, new File(getDataFolder(), "players"));
+        List<String> migrated = yamlStore.migrate(new Config(this, "players"));
+        playerStore = yamlStore;
+        if (getConfig().getString(SettingValues.STORAGE.path(), "yaml").equalsIgnoreCase("sql")) {
+            try {
+                playerStore = openDatabase(yamlStore, migrated);
+            }
+
+            // The player files are outdated once the database is used, so never fall back to them
+            catch (SQLException ex) {
+                getLogger().severe("Failed to open the player database, disabling SkillAPI: " + ex.getMessage());
+                getServer().getPluginManager().disablePlugin(this);
+                return;
             }
         }
+        try {
+            playerIndex = new PlayerIndex(new File(getDataFolder(), "players.idx"), registration.getClasses());
+        }
+        catch (IOException ex) {
+            getLogger().severe("Failed to open the player index, offline summaries are unavailable: " + ex.getMessage());
+        }
+        journal = new ProgressJournal(this, new File(getDataFolder(), "journal"), playerStore, playerIndex, 1);
+        playerWriter = new WriteBehindQueue(this, playerStore, playerIndex);
+        for (PlayerSnapshot snapshot : journal.takeUnsaved()) {
+            playerWriter.queue(snapshot);
+        }
 
-        // Append player data
+        // Only limit the offline players when not loading everyone anyway
+        int cacheSize = getConfig().getInt(SettingValues.OFFLINE_CACHE_SIZE.path(), 200);
+        offlinePlayers = new OfflinePlayerCache(playerWriter, lazyLoading ? cacheSize : 0);
+        prefetcher = new PlayerPrefetcher(playerStore, playerWriter);
+
+        // Rank offline players in the background, players loaded in the meantime rank themselves
+        leaderboard = new Leaderboard();
+        getServer().getScheduler().runTaskAsynchronously(this, new Runnable() {
+            public void run() {
+
+                // Build the index from the stored data if it's new
+                if (playerIndex == null || playerIndex.size() == 0) {
+                    for (String name : playerStore.getNames()) {
+                        PlayerSnapshot data;
+                        try {
+                            data = playerStore.load(name);
+                        }
+                        catch (IllegalStateException ex) {
+                            continue;
+                        }
+                        if (data == null) continue;
+                        if (playerIndex != null) playerIndex.update(data);
+                        else leaderboard.add(new OfflinePlayerSummary(data.getName(), data.getClassName(),
+                                data.getLevel(), data.getExp(), data.getPoints(), 0));
+                    }
+                }
+                if (playerIndex == null) return;
+
+                for (OfflinePlayerSummary summary : playerIndex.getAll()) {
+                    leaderboard.add(summary);
+                }
+            }
+        });
+
+        // Set up the auto save task
+        int saveFreq = getConfig().getInt(SettingValues.AUTO_SAVE_FREQ.path(), 300);
+        if (saveFreq > 0) saveTask = new AutoSaveTask(this, saveFreq);
+
+        // Load player data, only doing those online when loading lazily
+        if (!lazyLoading) {
+            for (String player : playerStore.getNames()) {
+                try {
+                    getPlayer(player);
+                }
+                catch (IllegalStateException ex) { /* Loaded when needed instead */ }
+            }
+        }
         for (Player player : getServer().getOnlinePlayers()) {
-            if (!players.containsKey(player.getName().toLowerCase()))
-                players.put(player.getName().toLowerCase(), new PlayerSkills(this, player.getName()));
+            try {
+                getPlayer(player);
+            }
+            catch (IllegalStateException ex) {
+                player.kickPlayer(LOAD_FAILED_MESSAGE);
+            }
         }
 
         // Setup Helper classes
@@ -166,6 +280,8 @@ public class SkillAPI extends JavaPlugin {
         new ClassCommander(this);
         if (clickCombo) new ClickListener(this);
         dotHelper = new DOTHelper(this);
+        spatialIndex = new SpatialIndex(this);
+        TargetHelper.initialize(spatialIndex);
         ParticleHelper.initialize();
     }
 
@@ -188,18 +304,34 @@ public class SkillAPI extends JavaPlugin {
             invTask.cancel();
             invTask = null;
         }
-
-        // Save player data
-        for (String key : playerConfig.getConfig().getKeys(false)) {
-            playerConfig.getConfig().set(key, null);
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+        if (tickCounter != null) {
+            tickCounter.cancel();
+            tickCounter = null;
+        }
+        Protection.initialize(null);
+        TargetHelper.initialize(null);
+
+        // Save player data, waiting for it to be written
+        if (playerWriter != null) {
+            savePlayerData();
+            journal.close(playerWriter.close());
+            playerWriter = null;
         }
-        for (String player : players.keySet()) {
-            savePlayer(player);
+        if (playerStore != null) {
+            playerStore.close();
+            playerStore = null;
+        }
+        if (playerIndex != null) {
+            playerIndex.close();
+            playerIndex = null;
         }
-        playerConfig.saveConfig();
 
         // Stop passive abilities
-        for (PlayerSkills player : players.values()) {
+        for (PlayerSkills player : onlinePlayers.values()) {
             player.stopPassiveAbilities();
             player.applyMaxHealth(20);
         }
@@ -211,7 +343,12 @@ public class SkillAPI extends JavaPlugin {
         // Clear all data
         registration.clearData();
         exp.clear();
-        players.clear();
+        onlinePlayers.clear();
+        onlineIds.clear();
+        if (offlinePlayers != null) offlinePlayers.clear();
+        if (prefetcher != null) prefetcher.clear();
+        if (leaderboard != null) leaderboard.clear();
+        parkedCooldowns.clear();
         getServer().getScheduler().cancelTasks(this);
     }
 
@@ -220,33 +357,171 @@ public class SkillAPI extends JavaPlugin {
     /**
      * <p>Saves the data of the player with the given name</p>
      * <p>The name is not cast-sensitive</p>
-     * <p>If no data is found for the player, nothing happens</p>
-     * <p>This does not update the config, only adds their data to the buffer</p>
+     * <p>If no data is found for the player or it hasn't changed
+     * since it was last saved, nothing happens</p>
+     * <p>The data is copied right away but written to the player's
+     * file on a separate thread shortly after.</p>
      *
      * @param player player name
      */
     public void savePlayer(String player) {
-        player = player.toLowerCase();
-        if (!players.containsKey(player)) return;
-        players.get(player).save(playerConfig.getConfig(), PlayerValues.ROOT + "." + player + ".");
+        PlayerSkills data = getLoadedPlayer(player.toLowerCase());
+        if (data != null) savePlayer(data);
+    }
+
+    /**
+     * Saves the player data if it changed since it was last saved
+     *
+     * @param data player data
+     */
+    private void savePlayer(PlayerSkills data) {
+        if (data.isDirty()) playerWriter.queue(data.snapshot());
+    }
+
+    /**
+     * <p>Opens the player database, copying the player files into it the first time</p>
+     * <p>Players just moved out of the old single file are copied over
+     * even if the database is already in use, since a previous migration
+     * of them failed.</p>
+     *
+     * @param yamlStore store of the player files
+     * @param migrated  names of the players just moved out of the old single file
+     * @return          database store
+     * @throws SQLException if the database couldn't be opened or filled
+     */
+    private SQLDataStore openDatabase(YamlDataStore yamlStore, List<String> migrated) throws SQLException {
+        SQLDataStore sqlStore = new SQLDataStore(this, new File(getDataFolder(), "players.db"));
+
+        // Copy over the player files the first time the database is used
+        try {
+            boolean first = sqlStore.isEmpty();
+            List<PlayerSnapshot> data = new ArrayList<PlayerSnapshot>();
+            for (String name : first ? yamlStore.getNames() : migrated) {
+                if (!first && sqlStore.contains(name)) continue;
+                PlayerSnapshot snapshot = yamlStore.load(name);
+                if (snapshot != null) data.add(snapshot);
+            }
+            if (!sqlStore.saveAll(data).isEmpty()) {
+                throw new SQLException("Could not copy the player files into the database");
+            }
+            return sqlStore;
+        }
+        catch (IllegalStateException ex) {
+            sqlStore.close();
+            throw new SQLException("Could not read the player files to copy into the database", ex);
+        }
+        catch (SQLException ex) {
+            sqlStore.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * <p>Releases the data of the player with the given name after they left</p>
+     * <p>The name is not case-sensitive</p>
+     * <p>When lazy loading is enabled, the data is saved and released.
+     * It will be loaded again the next time it is requested. Otherwise
+     * the data stays loaded as an offline player.</p>
+     *
+     * @param player player name
+     */
+    public void unloadPlayer(String player) {
+        String lower = player.toLowerCase();
+        UUID id = onlineIds.remove(lower);
+        PlayerSkills data = id == null ? offlinePlayers.get(lower) : onlinePlayers.remove(id);
+        if (data == null || data.isPlaceholder()) return;
+        if (playerIndex != null) playerIndex.touch(player, System.currentTimeMillis());
+
+        if (lazyLoading) {
+            savePlayer(data);
+            offlinePlayers.remove(lower);
+            parkCooldowns(lower, data);
+        }
+        else offlinePlayers.put(lower, data);
+    }
+
+    /**
+     * <p>Keeps the running cooldowns of a player that is being released</p>
+     * <p>Cooldowns aren't saved with the player data, so without this
+     * logging out and back in would reset them. Cooldowns that already
+     * ended are dropped along the way.</p>
+     *
+     * @param lower lower case player name
+     * @param data  data of the player
+     */
+    private void parkCooldowns(String lower, PlayerSkills data) {
+        long now = System.currentTimeMillis();
+        Iterator<ParkedCooldowns> iterator = parkedCooldowns.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().end <= now) iterator.remove();
+        }
+
+        long end = data.getCooldownEnd();
+        if (end > now) parkedCooldowns.put(lower, new ParkedCooldowns(data.getCooldownStarts(), end));
     }
 
     /**
      * <p>Forces the player configuration to save</p>
-     * <p>This does not update player data, only causes the config to save</p>
+     * <p>Player data is now saved to a separate file for each player
+     * as soon as it is saved so this does nothing.</p>
+     *
+     * @deprecated use savePlayer(String) or savePlayerData() instead
      */
+    @Deprecated
     public void savePlayerConfig() {
-        playerConfig.saveConfig();
     }
 
     /**
-     * <p>Updates all player data and forces the configuration to save</p>
+     * <p>Saves the data of all loaded players that changed</p>
+     * <p>Once the data is written, the progress journal up to
+     * this point is no longer needed and gets deleted.</p>
      */
     public void savePlayerData() {
-        for (String playerName : players.keySet()) {
-            savePlayer(playerName);
+        for (PlayerSkills data : onlinePlayers.values()) {
+            savePlayer(data);
         }
-        playerConfig.saveConfig();
+        for (PlayerSkills data : offlinePlayers.values()) {
+            savePlayer(data);
+        }
+        final int segment = journal.checkpoint();
+        playerWriter.afterWrite(new Runnable() {
+            public void run() {
+                journal.retire(segment);
+            }
+        });
+    }
+
+    /**
+     * <p>Retrieves the highest ranked players of a class by level and experience</p>
+     * <p>This includes offline players and only takes as long as the
+     * number of players requested. The class name is not case-sensitive.</p>
+     *
+     * @param className name of the class
+     * @param amount    maximum number of players to get
+     * @return          highest ranked players, best first
+     */
+    public List<LeaderboardEntry> getTopPlayers(String className, int amount) {
+        return leaderboard.getTop(className, amount);
+    }
+
+    /**
+     * <p>Retrieves the leaderboard ranking players of each class</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * <p>Retrieves the journal recording player progression</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return progress journal
+     */
+    public ProgressJournal getJournal() {
+        return journal;
     }
 
     // ----------------------------- Settings Accessor Methods -------------------------------------- //
@@ -259,6 +534,17 @@ public class SkillAPI extends JavaPlugin {
         return treeType;
     }
 
+    /**
+     * <p>Retrieves the current server tick</p>
+     * <p>This counts up by one every tick starting when the
+     * API is enabled, so it only works for measuring time.</p>
+     *
+     * @return current server tick
+     */
+    public int getTick() {
+        return tickCounter == null ? 0 : tickCounter.getTick();
+    }
+
     /**
      * @return whether or not mana is enabled
      */
@@ -298,6 +584,13 @@ public class SkillAPI extends JavaPlugin {
         return exp.get(mob.toLowerCase());
     }
 
+    /**
+     * @return whether or not player data is loaded only when needed
+     */
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
     /**
      * @return whether or not old health bar mechanics are enabled
      */
@@ -433,22 +726,252 @@ public class SkillAPI extends JavaPlugin {
 
     /**
      * <p>Retrieves data for a player</p>
+     * <p>If the data isn't loaded yet, it is loaded from the player's file</p>
      * <p>If no data is found for the player, new data is created</p>
+     * <p>Use getPlayer(Player) instead when you have the player as it
+     * is much faster.</p>
      *
      * @param name player name
      * @return     player class data
+     * @throws IllegalStateException if the stored data couldn't be read
      */
     public PlayerSkills getPlayer(String name) {
 
+        PlayerSkills data = getLoadedPlayer(name.toLowerCase());
+        if (data != null) return data;
+
+        // Online players are registered by their id
+        Player player = getServer().getPlayerExact(name);
+        if (player != null) return getPlayer(player);
+
+        // Data read ahead for a login could be outdated once loaded here
+        prefetcher.discard(name.toLowerCase());
+        data = loadPlayer(name);
+        PlayerSkills existing = offlinePlayers.putIfAbsent(name.toLowerCase(), data);
+        return existing == null ? data : existing;
+    }
+
+    /**
+     * <p>Retrieves data for an online player</p>
+     * <p>If the data isn't loaded yet, it is loaded from the player's file</p>
+     * <p>If no data is found for the player, new data is created</p>
+     *
+     * @param player player to get the data for
+     * @return       player class data
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    public PlayerSkills getPlayer(Player player) {
+        PlayerSkills data = onlinePlayers.get(player.getUniqueId());
+        if (data != null) return data;
+
+        data = getAvailablePlayer(player.getName());
+        if (data == null) data = loadPlayer(player.getName());
+        return registerPlayer(player, data);
+    }
+
+    /**
+     * <p>Sets up the data of a player that just joined without blocking
+     * on the disk</p>
+     * <p>If the data isn't loaded or read ahead yet, the player gets
+     * placeholder data while the real data loads asynchronously. The
+     * placeholder is replaced and the callback is run on the main thread
+     * once that is done. Otherwise the callback isn't used. The
+     * placeholder ignores changes to it, see PlayerSkills.isPlaceholder().</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param player   player that joined
+     * @param onLoaded task to run after replacing placeholder data
+     * @return         player data, possibly a placeholder
+     */
+    public PlayerSkills joinPlayer(final Player player, final Runnable onLoaded) {
+        PlayerSkills data = onlinePlayers.get(player.getUniqueId());
+        if (data != null) return data;
+
+        data = getAvailablePlayer(player.getName());
+        if (data != null) return registerPlayer(player, data);
+
+        // Load the data in the background
+        final PlayerSkills placeholder = registerPlayer(player, new PlayerSkills(this, player.getName(), true));
+        getServer().getScheduler().runTaskAsynchronously(this, new Runnable() {
+            public void run() {
+                final boolean loaded = tryPrefetch(player.getName());
+                getServer().getScheduler().runTask(SkillAPI.this, new Runnable() {
+                    public void run() {
+
+                        // Keep the placeholder, which is never saved, rather than blank data
+                        if (!loaded) {
+                            if (onlinePlayers.get(player.getUniqueId()) == placeholder) player.kickPlayer(LOAD_FAILED_MESSAGE);
+                            return;
+                        }
+
+                        String lower = player.getName().toLowerCase();
+                        if (onlinePlayers.get(player.getUniqueId()) != placeholder) {
+                            prefetcher.discard(lower);
+                            return;
+                        }
+                        onlinePlayers.put(player.getUniqueId(), createPlayer(player.getName(), prefetcher.take(lower)));
+                        onLoaded.run();
+                    }
+                });
+            }
+        });
+        return placeholder;
+    }
+
+    /**
+     * Reads the data of a player ahead of time, logging any failure
+     *
+     * @param name player name
+     * @return     true if read, false if the stored data couldn't be read
+     */
+    private boolean tryPrefetch(String name) {
+        try {
+            prefetcher.prefetch(name);
+            return true;
+        }
+        catch (IllegalStateException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * <p>Reads the data of a player ahead of time while they log in</p>
+     * <p>This blocks on the disk so only call it off the main thread.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param name player name
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    public void prefetchPlayer(String name) {
+        if (getLoadedPlayer(name.toLowerCase()) == null) prefetcher.prefetch(name);
+    }
+
+    /**
+     * <p>Drops data read ahead of time for a player that didn't join</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param name player name
+     */
+    public void discardPrefetch(String name) {
+        prefetcher.discard(name.toLowerCase());
+    }
+
+    /**
+     * Retrieves the data of a player that is available without reading from
+     * the disk, meaning loaded while offline or read ahead during login
+     *
+     * @param name player name
+     * @return     player data or null if not available
+     */
+    private PlayerSkills getAvailablePlayer(String name) {
         String lower = name.toLowerCase();
+        PlayerSkills data = offlinePlayers.get(lower);
+        if (data != null) {
+            prefetcher.discard(lower);
+            return data;
+        }
+        if (prefetcher.isReady(lower)) {
+            PlayerSnapshot stored = prefetcher.take(lower);
+            return createPlayer(name, stored);
+        }
+        return null;
+    }
 
-        // If the player data doesn't exist, create a new instance
-        if (!players.containsKey(lower)) {
-            players.put(lower, new PlayerSkills(this, name));
+    /**
+     * Registers the data of an online player
+     *
+     * @param player online player
+     * @param data   player data
+     * @return       registered data, which may differ if it was registered already
+     */
+    private PlayerSkills registerPlayer(Player player, PlayerSkills data) {
+        String lower = player.getName().toLowerCase();
+        PlayerSkills existing = onlinePlayers.putIfAbsent(player.getUniqueId(), data);
+        if (existing != null) return existing;
+        onlineIds.put(lower, player.getUniqueId());
+        offlinePlayers.remove(lower);
+        return data;
+    }
+
+    /**
+     * Retrieves the data of a player if it is currently loaded
+     *
+     * @param lower lower case player name
+     * @return      loaded data or null if not loaded
+     */
+    private PlayerSkills getLoadedPlayer(String lower) {
+        UUID id = onlineIds.get(lower);
+        if (id != null) {
+            PlayerSkills data = onlinePlayers.get(id);
+            if (data != null) return data;
         }
+        return offlinePlayers.get(lower);
+    }
+
+    /**
+     * <p>Loads the data of a player without registering it</p>
+     * <p>If no data is found for the player, new data is created</p>
+     *
+     * @param name player name
+     * @return     loaded data
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    private PlayerSkills loadPlayer(String name) {
+
+        // Load the player data if it was saved before, preferring data still waiting to be written
+        PlayerSnapshot stored = playerWriter.getPending(name);
+        if (stored == null) stored = playerStore.load(name);
+        return createPlayer(name, stored);
+    }
+
+    /**
+     * Creates the data of a player from their stored data
+     *
+     * @param name   player name
+     * @param stored stored data or null to create new data
+     * @return       player data
+     */
+    private PlayerSkills createPlayer(String name, PlayerSnapshot stored) {
+        PlayerSkills data = stored == null ? new PlayerSkills(this, name) : new PlayerSkills(this, stored);
+        if (stored != null) data.updateHealth();
+
+        // Bring back cooldowns still running from before the data was released
+        ParkedCooldowns cooldowns = parkedCooldowns.remove(name.toLowerCase());
+        if (cooldowns != null && cooldowns.end > System.currentTimeMillis()) data.setCooldownStarts(cooldowns.starts);
+        leaderboard.update(data);
+        return data;
+    }
+
+    /**
+     * <p>Retrieves a summary of the class data of a player</p>
+     * <p>For players that aren't loaded, this only reads the player index
+     * rather than loading all of their data, so prefer this over
+     * getPlayer(String) when only the class, level or experience is needed.</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     summary of the player or null if they have no data
+     */
+    public OfflinePlayerSummary getPlayerSummary(String name) {
+        String lower = name.toLowerCase();
+        OfflinePlayerSummary summary = playerIndex == null ? null : playerIndex.get(lower);
+        PlayerSkills data = getLoadedPlayer(lower);
+        if (data == null || data.isPlaceholder()) return summary;
 
-        // Return the player data
-        return players.get(lower);
+        long lastSeen = onlineIds.containsKey(lower) ? System.currentTimeMillis() : summary == null ? 0 : summary.getLastSeen();
+        return new OfflinePlayerSummary(data.getName(), data.getClassName(), data.getLevel(), data.getExp(), data.getPoints(), lastSeen);
+    }
+
+    /**
+     * <p>Checks whether or not data exists for the player, loaded or not</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     true if data exists, false otherwise
+     */
+    public boolean hasPlayerData(String name) {
+        String lower = name.toLowerCase();
+        return getLoadedPlayer(lower) != null || playerWriter.getPending(lower) != null || playerStore.contains(lower);
     }
 
     // ----------------------------- Data Accessor Methods -------------------------------------- //
@@ -460,6 +983,13 @@ public class SkillAPI extends JavaPlugin {
         return dotHelper;
     }
 
+    /**
+     * @return spatial index of living entities used by the API
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
     /**
      * <p>Checks if a class is loaded with the given name</p>
      * <p>The name is not case-sensitive</p>
@@ -534,6 +1064,15 @@ public class SkillAPI extends JavaPlugin {
         return registration.getClass(name);
     }
 
+    /**
+     * <p>Retrieves all loaded classes</p>
+     *
+     * @return loaded classes
+     */
+    public Collection<CustomClass> getClasses() {
+        return registration.getClasses();
+    }
+
     /**
      * <p>Retrieves the class with the given name</p>
      * <p>If no loaded class has the name, null is returned</p>
@@ -777,4 +1316,24 @@ public class SkillAPI extends JavaPlugin {
         }
         return message;
     }
+
+    /**
+     * Cooldowns of a released player until they are loaded again
+     */
+    private static class ParkedCooldowns {
+
+        private final long[] starts;
+        private final long end;
+
+        /**
+         * Constructor
+         *
+         * @param starts cooldown start times indexed by skill id
+         * @param end    when the last of the cooldowns ends
+         */
+        private ParkedCooldowns(long[] starts, long end) {
+            this.starts = starts;
+            this.end = end;
+        }
+    }
 }
@@ -5,7 +5,8 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.Status;
 import com.sucy.skill.api.StatusHolder;
 import com.sucy.skill.api.event.*;
-import com.sucy.skill.api.util.effects.ParticleProjectile;
+import com.sucy.skill.api.skill.CastContext;
+import com.sucy.skill.api.skill.ClassSkill;
 import com.sucy.skill.api.util.effects.ParticleType;
 import com.sucy.skill.language.StatusNodes;
 import com.sucy.skill.mccore.CoreChecker;
@@ -65,7 +66,7 @@ public class SkillListener implements Listener {
             return;
         }
 
-        PlayerSkills data = plugin.getPlayer(player.getName());
+        PlayerSkills data = plugin.getPlayer(player);
         Material heldItem = player.getItemInHand().getType();
 
         // Must be on right click
@@ -118,7 +119,7 @@ public class SkillListener implements Listener {
         }
 
         // Player class damage
-        if (damager instanceof Player && PlayerSkills.skillsBeingCast.isEmpty() && !ParticleProjectile.damaging) {
+        if (damager instanceof Player && CastContext.current() == null) {
 
             Player p = (Player)damager;
 
@@ -128,7 +129,7 @@ public class SkillListener implements Listener {
             }
 
             // Unusable weapon
-            if (InventoryTask.cannotUse(plugin.getPlayer(p.getName()), p.getItemInHand())) {
+            if (InventoryTask.cannotUse(plugin.getPlayer(p), p.getItemInHand())) {
                 event.setDamage(1);
                 return;
             }
@@ -136,7 +137,7 @@ public class SkillListener implements Listener {
             // Projectile damage
             if (event.getDamager() instanceof Projectile) {
                 Projectile projectile = (Projectile) event.getDamager();
-                PlayerSkills player = plugin.getPlayer(p.getName());
+                PlayerSkills player = plugin.getPlayer(p);
 
                 if (player.getClassName() != null) {
                     CustomClass playerClass = plugin.getClass(player.getClassName());
@@ -169,7 +170,7 @@ public class SkillListener implements Listener {
 
             // Melee damage
             else {
-                PlayerSkills player = plugin.getPlayer(p.getName());
+                PlayerSkills player = plugin.getPlayer(p);
                 if (player != null && player.getClassName() != null) {
                     CustomClass playerClass = plugin.getClass(player.getClassName());
 
@@ -202,7 +203,7 @@ public class SkillListener implements Listener {
      */
     @EventHandler
     public void onLaunch(ProjectileLaunchEvent event) {
-        if (PlayerSkills.skillsBeingCast.isEmpty() && event.getEntity().getShooter() instanceof Player) {
+        if (CastContext.current() == null && event.getEntity().getShooter() instanceof Player) {
             Player player = (Player)event.getEntity().getShooter();
             ItemStack item = player.getItemInHand();
             if (item.getType().toString().toLowerCase().startsWith("x")) {
@@ -273,7 +274,7 @@ public class SkillListener implements Listener {
             if (damaged == null || damager == null || damaged.getNoDamageTicks() > 0) return;
 
             AttackType type;
-            if (PlayerSkills.skillsBeingCast.size() > 0) type = AttackType.SKILL;
+            if (CastContext.getCurrentSkill() != null) type = AttackType.SKILL;
             else if (event.getCause() == EntityDamageEvent.DamageCause.ENTITY_ATTACK) type = AttackType.MELEE;
             else type = AttackType.PROJECTILE;
 
@@ -298,7 +299,7 @@ public class SkillListener implements Listener {
 
                 // Call an event when a player's skill dealt damage
                 if (type == AttackType.SKILL) {
-                    PlayerOnSkillHitEvent she = new PlayerOnSkillHitEvent(p, damaged, PlayerSkills.skillsBeingCast.peek().getName(), event.getDamage());
+                    PlayerOnSkillHitEvent she = new PlayerOnSkillHitEvent(p, damaged, CastContext.getCurrentSkill().getName(), event.getDamage());
                     plugin.getServer().getPluginManager().callEvent(she);
                     BukkitHelper.setDamage(event, she.getDamage());
                 }
@@ -321,6 +322,37 @@ public class SkillListener implements Listener {
         }
     }
 
+    /**
+     * Reads player data ahead of time while the player logs in
+     *
+     * @param event event details
+     */
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            try {
+                plugin.prefetchPlayer(event.getName());
+            }
+
+            // Joining with blank data would overwrite the real data
+            catch (IllegalStateException ex) {
+                event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, SkillAPI.LOAD_FAILED_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Drops data read ahead of time when the login is denied
+     *
+     * @param event event details
+     */
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            plugin.discardPrefetch(event.getPlayer().getName());
+        }
+    }
+
     /**
      * Initializes class effects when a player joins the game
      *
@@ -329,13 +361,31 @@ public class SkillListener implements Listener {
     @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onJoin(PlayerJoinEvent event) {
 
-        PlayerSkills skills = plugin.getPlayer(event.getPlayer().getName());
+        final Player player = event.getPlayer();
+        PlayerSkills skills = plugin.joinPlayer(player, new Runnable() {
+            public void run() {
+                if (player.isOnline()) initialize(player);
+            }
+        });
+
+        // Placeholder data gets initialized once the real data is loaded
+        if (!skills.isPlaceholder()) initialize(player);
+    }
+
+    /**
+     * Initializes class effects for a player that joined
+     *
+     * @param player player to initialize
+     */
+    private void initialize(Player player) {
+
+        PlayerSkills skills = plugin.getPlayer(player);
 
         // Level bar
         skills.updateLevelBar();
 
         // Effects when a player has a class
-        if (skills.hasClass() && !event.getPlayer().isDead()) {
+        if (skills.hasClass() && !player.isDead()) {
 
             // Update the player health
             skills.updateHealth();
@@ -367,18 +417,20 @@ public class SkillListener implements Listener {
     }
 
     /**
-     * Cancels passive abilities upon quitting the game
+     * Cancels passive abilities and releases player data upon quitting the game
      *
      * @param event event details
      */
     @EventHandler (priority = EventPriority.MONITOR)
     public void onQuit(PlayerQuitEvent event) {
         if (!event.getPlayer().isDead()) {
-            PlayerSkills skills = plugin.getPlayer(event.getPlayer().getName());
+            PlayerSkills skills = plugin.getPlayer(event.getPlayer());
             skills.stopPassiveAbilities();
             skills.clearHealthBonuses();
             skills.applyMaxHealth(20);
         }
+        plugin.unloadPlayer(event.getPlayer().getName());
+        plugin.discardPrefetch(event.getPlayer().getName());
     }
 
     /**
@@ -389,7 +441,7 @@ public class SkillListener implements Listener {
     @EventHandler (priority = EventPriority.MONITOR)
     public void onDeath(EntityDeathEvent event) {
         if (event.getEntity() instanceof Player) {
-            PlayerSkills player = plugin.getPlayer(((Player) event.getEntity()).getName());
+            PlayerSkills player = plugin.getPlayer((Player) event.getEntity());
             player.stopPassiveAbilities();
         }
     }
@@ -401,7 +453,7 @@ public class SkillListener implements Listener {
      */
     @EventHandler
     public void onRespawn(PlayerRespawnEvent event) {
-        PlayerSkills player = plugin.getPlayer(event.getPlayer().getName());
+        PlayerSkills player = plugin.getPlayer(event.getPlayer());
         player.startPassiveAbilities(event.getPlayer());
     }
 
@@ -444,7 +496,7 @@ public class SkillListener implements Listener {
                 return;
             }
             if (!plugin.usingExpOrbs()) {
-                PlayerSkills player = plugin.getPlayer(event.getEntity().getKiller().getName());
+                PlayerSkills player = plugin.getPlayer(event.getEntity().getKiller());
                 player.giveExp(plugin.getExp(getName(event.getEntity())));
             }
         }
@@ -457,7 +509,7 @@ public class SkillListener implements Listener {
      */
     @EventHandler
     public void onMove(PlayerMoveEvent event) {
-        PlayerSkills player = plugin.getPlayer(event.getPlayer().getName());
+        PlayerSkills player = plugin.getPlayer(event.getPlayer());
         if (player != null && (player.hasStatus(Status.STUN) ||  player.hasStatus(Status.ROOT))) {
             Location from = event.getFrom();
             Location to = event.getTo();
@@ -503,15 +555,17 @@ public class SkillListener implements Listener {
 
                 // If they clicked on a skill, try upgrading it
                 if (tree.isSkill(event.getSlot())) {
-                    PlayerSkills player = plugin.getPlayer(event.getWhoClicked().getName());
+                    PlayerSkills player = plugin.getPlayer((Player) event.getWhoClicked());
+                    ClassSkill skill = tree.getSkill(event.getSlot());
+                    int points = player.getPoints();
                     if (event.isLeftClick()) {
-                        if (player.upgradeSkill(tree.getSkill(event.getSlot()))) {
-                            tree.update(event.getInventory(), player);
+                        if (player.upgradeSkill(skill)) {
+                            tree.update(event.getInventory(), player, skill, points);
                         }
                     }
                     else if (event.isRightClick()) {
-                        if (player.downgradeSkill(tree.getSkill(event.getSlot()))) {
-                            tree.update(event.getInventory(), player);
+                        if (player.downgradeSkill(skill)) {
+                            tree.update(event.getInventory(), player, skill, points);
                         }
                     }
                 }
@@ -532,7 +586,7 @@ public class SkillListener implements Listener {
     @EventHandler (priority = EventPriority.HIGHEST)
     public void onExpChange(PlayerExpChangeEvent event) {
         if (plugin.usingExpOrbs()) {
-            plugin.getPlayer(event.getPlayer().getName()).giveExp(event.getAmount());
+            plugin.getPlayer(event.getPlayer()).giveExp(event.getAmount());
         }
         if (plugin.usingLevelBar() && event.getPlayer().hasPermission(PermissionNodes.BASIC)) {
             event.setAmount(0);
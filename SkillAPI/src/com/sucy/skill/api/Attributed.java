@@ -3,17 +3,62 @@ package com.sucy.skill.api;
 import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Base class for objects with dynamic data
+ * <p>Base class for objects with dynamic data</p>
+ * <p>Attribute names are interned into global ids. The values are compiled
+ * into arrays the first time they are read after a change so reading an
+ * attribute by its id doesn't need any map lookups.</p>
  */
 public abstract class Attributed extends Valued {
 
+    private static final ConcurrentHashMap<String, Integer> ATTRIBUTE_IDS = new ConcurrentHashMap<String, Integer>();
+    private static final ArrayList<String> ATTRIBUTE_NAMES = new ArrayList<String>();
+
     private final HashMap<String, Double> base = new HashMap<String, Double>();
     private final HashMap<String, Double> scale = new HashMap<String, Double>();
 
+    private Compiled compiled;
+
+    /**
+     * <p>Gets the id of an attribute name</p>
+     * <p>Each name gets the same id for every object and the id
+     * never changes, so it can be looked up once and kept.</p>
+     *
+     * @param name attribute name
+     * @return     attribute id
+     */
+    public static int getAttributeId(String name) {
+        Integer id = ATTRIBUTE_IDS.get(name);
+        if (id != null) return id;
+        synchronized (ATTRIBUTE_NAMES) {
+            id = ATTRIBUTE_IDS.get(name);
+            if (id == null) {
+                id = ATTRIBUTE_NAMES.size();
+                ATTRIBUTE_NAMES.add(name);
+                ATTRIBUTE_IDS.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Gets the name of an attribute id
+     *
+     * @param id attribute id
+     * @return   attribute name or null if not a valid id
+     */
+    public static String getAttributeName(int id) {
+        synchronized (ATTRIBUTE_NAMES) {
+            return id >= 0 && id < ATTRIBUTE_NAMES.size() ? ATTRIBUTE_NAMES.get(id) : null;
+        }
+    }
+
     /**
      * <p>Defines a new attribute for the skill</p>
      * <p>Values are overwritten after the configuration
@@ -32,6 +77,7 @@ public abstract class Attributed extends Valued {
 
         this.base.put(name, base);
         this.scale.put(name, scale);
+        invalidate();
     }
 
     /**
@@ -52,6 +98,7 @@ public abstract class Attributed extends Valued {
 
         this.base.put(name, (double)base);
         this.scale.put(name, (double)scale);
+        invalidate();
     }
 
     /**
@@ -93,6 +140,7 @@ public abstract class Attributed extends Valued {
     public void setBase(String attribute, double value) {
         if (!hasAttribute(attribute)) throw new IllegalArgumentException("Attribute is not defined - " + attribute);
         base.put(attribute, value);
+        invalidate();
     }
 
     /**
@@ -108,6 +156,7 @@ public abstract class Attributed extends Valued {
     public void setScale(String attribute, double value) {
         if (!hasAttribute(attribute)) throw new IllegalArgumentException("Attribute is not defined - " + attribute);
         scale.put(attribute, value);
+        invalidate();
     }
 
     /**
@@ -123,6 +172,7 @@ public abstract class Attributed extends Valued {
     public void setBase(String attribute, int value) {
         if (!hasAttribute(attribute)) throw new IllegalArgumentException("Attribute is not defined - " + attribute);
         base.put(attribute, (double)value);
+        invalidate();
     }
 
     /**
@@ -138,6 +188,7 @@ public abstract class Attributed extends Valued {
     public void setScale(String attribute, int value) {
         if (!hasAttribute(attribute)) throw new IllegalArgumentException("Attribute is not defined - " + attribute);
         scale.put(attribute, (double)value);
+        invalidate();
     }
 
     /**
@@ -163,6 +214,17 @@ public abstract class Attributed extends Valued {
         return base.containsKey(name);
     }
 
+    /**
+     * Checks if the attribute is defined
+     *
+     * @param id id of the attribute
+     * @return   true if defined, false otherwise
+     */
+    public boolean hasAttribute(int id) {
+        Compiled c = getCompiled();
+        return id >= 0 && id < c.slots.length && c.slots[id] >= 0;
+    }
+
     /**
      * Removes an attribute from the object
      *
@@ -171,6 +233,7 @@ public abstract class Attributed extends Valued {
     public void removeAttribute(String name) {
         base.remove(name);
         scale.remove(name);
+        invalidate();
     }
 
     /**
@@ -184,7 +247,68 @@ public abstract class Attributed extends Valued {
     public double getAttribute(String attribute, int level) {
         if (!hasAttribute(attribute)) throw new IllegalArgumentException("Attribute is not defined: " + attribute);
 
-        return getBase(attribute) + getScale(attribute) * (level - 1);
+        // Defined names may not have been given an id yet
+        return getAttribute(getAttributeId(attribute), level);
+    }
+
+    /**
+     * <p>Calculates a value for an attribute at a given level</p>
+     * <p>This is the fastest way to read an attribute. Get the id
+     * once using getAttributeId(String) and keep it.</p>
+     *
+     * @param id    attribute id
+     * @param level level of the skill
+     * @return      attribute value
+     * @throws IllegalArgumentException if the attribute is not defined
+     */
+    public double getAttribute(int id, int level) {
+        Compiled c = getCompiled();
+        int slot = id >= 0 && id < c.slots.length ? c.slots[id] : -1;
+        if (slot < 0) throw new IllegalArgumentException("Attribute is not defined: " + getAttributeName(id));
+
+        if (level >= 0 && level < c.levels) return c.table[slot * c.levels + level];
+        return c.base[slot] + c.scale[slot] * (level - 1);
+    }
+
+    /**
+     * Drops the compiled attribute values after a change
+     */
+    private void invalidate() {
+        compiled = null;
+        onAttributesChanged();
+    }
+
+    /**
+     * <p>Called whenever an attribute is defined, changed or removed</p>
+     * <p>Override this to drop anything cached from the attribute values.</p>
+     */
+    protected void onAttributesChanged() {
+    }
+
+    /**
+     * Gets the compiled attribute values, compiling them if they changed
+     *
+     * @return compiled attribute values
+     */
+    private Compiled getCompiled() {
+        Compiled c = compiled;
+        if (c == null) {
+            c = new Compiled();
+            compiled = c;
+        }
+        return c;
+    }
+
+    /**
+     * <p>Gets the highest level to precompute attribute values for</p>
+     * <p>Values up to this level are calculated once whenever the
+     * attributes change so reading them is a single array lookup.
+     * Values for other levels are still calculated on demand.</p>
+     *
+     * @return highest level to precompute or -1 for none
+     */
+    protected int getPrecomputedLevel() {
+        return -1;
     }
 
     /**
@@ -239,5 +363,52 @@ public abstract class Attributed extends Valued {
             base.put(key, section.getDouble("base"));
             scale.put(key, section.getDouble("scale"));
         }
+        invalidate();
+    }
+
+    /**
+     * Attribute values compiled into arrays
+     */
+    private class Compiled {
+
+        private final int[] slots;
+        private final double[] base;
+        private final double[] scale;
+        private final double[] table;
+        private final int levels;
+
+        /**
+         * Compiles the current attribute values
+         */
+        public Compiled() {
+            int size = Attributed.this.base.size();
+            base = new double[size];
+            scale = new double[size];
+
+            // Give each attribute a slot in the value arrays
+            int[] ids = new int[size];
+            int maxId = -1, slot = 0;
+            for (Map.Entry<String, Double> entry : Attributed.this.base.entrySet()) {
+                ids[slot] = getAttributeId(entry.getKey());
+                base[slot] = entry.getValue();
+                scale[slot] = Attributed.this.scale.get(entry.getKey());
+                maxId = Math.max(maxId, ids[slot]);
+                slot++;
+            }
+            slots = new int[maxId + 1];
+            Arrays.fill(slots, -1);
+            for (int i = 0; i < size; i++) {
+                slots[ids[i]] = i;
+            }
+
+            // Precompute the values up to the highest level
+            levels = Math.max(0, getPrecomputedLevel() + 1);
+            table = new double[size * levels];
+            for (int i = 0; i < size; i++) {
+                for (int level = 0; level < levels; level++) {
+                    table[i * levels + level] = base[i] + scale[i] * (level - 1);
+                }
+            }
+        }
     }
 }
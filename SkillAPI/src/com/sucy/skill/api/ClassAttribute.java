@@ -16,4 +16,16 @@ public class ClassAttribute {
          * Maximum mana for a class
          */
         MANA = "Mana";
+
+    public static final int
+
+        /**
+         * Id of the maximum health attribute
+         */
+        HEALTH_ID = Attributed.getAttributeId(HEALTH),
+
+        /**
+         * Id of the maximum mana attribute
+         */
+        MANA_ID = Attributed.getAttributeId(MANA);
 }
@@ -16,7 +16,9 @@ import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -34,6 +36,11 @@ public abstract class CustomClass extends Attributed {
     private final List<String> inheritance = new ArrayList<String>();
     private final List<String> skills = new ArrayList<String>();
 
+    private List<String> flattened;
+    private SkillLayout layout;
+    private ClassSkill[] combos;
+    private String[] clickStrings;
+
     private final SkillAPI api;
     private final SkillTree tree;
     private final String name;
@@ -166,7 +173,7 @@ public abstract class CustomClass extends Attributed {
      * @return      true if registered, false otherwise
      */
     public boolean hasSkill(ClassSkill skill) {
-        return tree.hasSkill(skill);
+        return getSkillLayout().indexOf(skill) >= 0;
     }
 
     /**
@@ -177,7 +184,7 @@ public abstract class CustomClass extends Attributed {
      * @return     true if registered, false otherwise
      */
     public boolean hasSkill(String name) {
-        return api.hasSkill(name) && tree.hasSkill(api.getSkill(name));
+        return getSkillLayout().indexOf(api.getSkill(name)) >= 0;
     }
 
     /**
@@ -226,6 +233,17 @@ public abstract class CustomClass extends Attributed {
         return maxLevel;
     }
 
+    /**
+     * <p>Gets the highest level to precompute attribute values for</p>
+     * <p>Classes precompute every level up to their max level</p>
+     *
+     * @return highest level to precompute
+     */
+    @Override
+    protected int getPrecomputedLevel() {
+        return maxLevel;
+    }
+
     /**
      * <p>Retrieves the list of the names of all classes this inherits from</p>
      * <p>Inherited classes provide this class with all of their skills</p>
@@ -239,25 +257,148 @@ public abstract class CustomClass extends Attributed {
     /**
      * <p>Retrieves the list of skill names available for this class</p>
      * <p>This list includes those provided by inherited classes</p>
+     * <p>The list is read-only. Use addSkills(String...) to add skills.</p>
      *
      * @return list of the names of skills available to this class
      */
     public List<String> getSkills() {
-        if (inheritance.size() == 0) return skills;
+        if (flattened == null) compileSkills();
+        return flattened;
+    }
 
+    /**
+     * <p>Flattens the skills of the class and the classes it inherits from</p>
+     * <p>This is done by the API after all classes are loaded, so the
+     * skill list and layout don't need to be worked out each time they
+     * are used.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     */
+    public void compileSkills() {
         List<String> list = new ArrayList<String>();
-        list.addAll(skills);
-        for (String parent : inheritance) {
-            CustomClass c = api.getClass(parent);
-            if (c != null) {
-                for (String skill : c.getSkills()) {
-                    if (!list.contains(skill)) {
-                        list.add(skill);
-                    }
+        collectSkills(this, list, new HashSet<String>(), new HashSet<String>());
+        flattened = Collections.unmodifiableList(list);
+
+        // Layout of the registered skills
+        List<ClassSkill> registered = new ArrayList<ClassSkill>();
+        for (String name : list) {
+            ClassSkill skill = api.getSkill(name);
+            if (skill != null && !registered.contains(skill)) {
+                registered.add(skill);
+            }
+        }
+        layout = new SkillLayout(registered.toArray(new ClassSkill[registered.size()]));
+
+        // Click combos of the active skills
+        combos = new ClassSkill[16];
+        clickStrings = new String[layout.size()];
+        int current = offset;
+        for (int i = 0; i < layout.size(); i++) {
+            ClassSkill skill = layout.get(i);
+            if (skill instanceof SkillShot || skill instanceof TargetSkill) {
+                if (current >= 0 && current < combos.length && combos[current] == null) {
+                    combos[current] = skill;
                 }
+                clickStrings[i] = buildClickString(current);
+                current += interval;
+            }
+            else clickStrings[i] = "";
+        }
+    }
+
+    /**
+     * <p>Drops the flattened skills, layout and click combos of the class</p>
+     * <p>Classes inheriting from this one are cleared as well since their
+     * flattened skills include the skills of this class. Everything is
+     * compiled again the next time it is used.</p>
+     */
+    private void clearCompiled() {
+        clearOwnCompiled();
+        if (api == null) return;
+        for (CustomClass c : api.getClasses()) {
+            if (c != this && c.inheritsFrom(this, new HashSet<String>())) {
+                c.clearOwnCompiled();
             }
         }
-        return list;
+    }
+
+    /**
+     * Drops the flattened skills, layout and click combos of only this class
+     */
+    private void clearOwnCompiled() {
+        flattened = null;
+        layout = null;
+        combos = null;
+        clickStrings = null;
+    }
+
+    /**
+     * Checks whether or not this class inherits skills from a class, directly or indirectly
+     *
+     * @param c       class to check for
+     * @param visited lower case names of classes already checked
+     * @return        true if inheriting from the class, false otherwise
+     */
+    private boolean inheritsFrom(CustomClass c, HashSet<String> visited) {
+        if (!visited.add(getName().toLowerCase())) return false;
+        for (String parent : inheritance) {
+            CustomClass parentClass = api.getClass(parent);
+            if (parentClass == null) continue;
+            if (parentClass == c || parentClass.inheritsFrom(c, visited)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the string describing a click combination
+     *
+     * @param index index of the click combination
+     * @return      click string
+     */
+    private String buildClickString(int index) {
+        String result = "";
+        for (int i = 0; i < 4; i++) {
+            int click = index % 2;
+            index /= 2;
+            result += ChatColor.GOLD + (click == 0 ? "Left" : "Right") + ChatColor.GRAY + ", ";
+        }
+
+        return result.substring(0, result.length() - 4);
+    }
+
+    /**
+     * Adds the skills of a class and the classes it inherits from to a list
+     *
+     * @param c       class to add the skills of
+     * @param list    list to add to
+     * @param found   lower case names of skills already in the list
+     * @param visited lower case names of classes already added
+     */
+    private void collectSkills(CustomClass c, List<String> list, HashSet<String> found, HashSet<String> visited) {
+        if (!visited.add(c.getName().toLowerCase())) return;
+        for (String skill : c.skills) {
+            if (found.add(skill.toLowerCase())) {
+                list.add(skill);
+            }
+        }
+        for (String parent : c.inheritance) {
+            CustomClass parentClass = api.getClass(parent);
+            if (parentClass != null) {
+                collectSkills(parentClass, list, found, visited);
+            }
+        }
+    }
+
+    /**
+     * <p>Retrieves the order of the skills available for this class</p>
+     * <p>Skill names that aren't registered are left out. The layout
+     * is made along with the flattened skill list.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return layout of the skills available for this class
+     */
+    public SkillLayout getSkillLayout() {
+        if (layout == null) compileSkills();
+        return layout;
     }
 
     /**
@@ -278,18 +419,20 @@ public abstract class CustomClass extends Attributed {
             }
         }
 
-        // Get the correlating skill
-        int current = offset;
-        for (String skill : getSkills()) {
-            ClassSkill s = api.getSkill(skill);
-            if ((s instanceof SkillShot || s instanceof TargetSkill) && index == current) {
-                return s;
-            }
-            current += interval;
-        }
+        return getSkill(index);
+    }
 
-        // No skill found
-        return null;
+    /**
+     * <p>Retrieves a SkillShot or TargetSkill from a packed combination of clicks</p>
+     * <p>Bit i of the combo is set when click i is a right click</p>
+     * <p>If the click combination does not match any available skill, this will return null</p>
+     *
+     * @param combo packed clicks from 0 to 15
+     * @return      skill for the combo or null if not found
+     */
+    public ClassSkill getSkill(int combo) {
+        if (combos == null) compileSkills();
+        return combos[combo & 15];
     }
 
     /**
@@ -308,31 +451,9 @@ public abstract class CustomClass extends Attributed {
             return "";
         }
 
-        // Get the index
-        int index = -1;
-        int current = offset;
-        for (String name : getSkills()) {
-            ClassSkill s = api.getSkill(name);
-            if (s != null && (s instanceof SkillShot || s instanceof TargetSkill)) {
-                if (name.equalsIgnoreCase(skill.getName())) {
-                    index = current;
-                }
-                current += interval;
-            }
-        }
-
-        // No click details
-        if (index == -1) return "";
-
-        // Get the result
-        String result = "";
-        for (int i = 0; i < 4; i++) {
-            int click = index % 2;
-            index /= 2;
-            result += ChatColor.GOLD + (click == 0 ? "Left" : "Right") + ChatColor.GRAY + ", ";
-        }
-
-        return result.substring(0, result.length() - 4);
+        // Look up the click details
+        int index = getSkillLayout().indexOf(skill);
+        return index < 0 ? "" : clickStrings[index];
     }
 
     /**
@@ -384,6 +505,7 @@ public abstract class CustomClass extends Attributed {
                 this.skills.add(skill);
             }
         }
+        clearCompiled();
     }
 
     /**
@@ -404,6 +526,7 @@ public abstract class CustomClass extends Attributed {
         // Inheritance
         inheritance.clear();
         inheritance.addAll(config.getStringList(ClassValues.INHERIT));
+        clearCompiled();
 
         // Options
         manaName = TextFormatter.colorString(config.getString(ClassValues.MANA_NAME, "Mana"));
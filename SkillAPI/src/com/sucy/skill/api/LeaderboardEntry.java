@@ -0,0 +1,71 @@
+package com.sucy.skill.api;
+
+/**
+ * <p>Position of a player on a class leaderboard</p>
+ * <p>Entries are copies of the player's data at the time they
+ * were last updated and never change afterwards.</p>
+ */
+public final class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+
+    private final String name;
+    private final String className;
+    private final int level;
+    private final int exp;
+
+    /**
+     * <p>Constructor</p>
+     * <p>Do not use this</p>
+     *
+     * @param name      player name
+     * @param className name of the player's class
+     * @param level     class level
+     * @param exp       class experience
+     */
+    public LeaderboardEntry(String name, String className, int level, int exp) {
+        this.name = name;
+        this.className = className;
+        this.level = level;
+        this.exp = exp;
+    }
+
+    /**
+     * @return name of the player
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return name of the player's class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return class level of the player
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return class experience of the player
+     */
+    public int getExp() {
+        return exp;
+    }
+
+    /**
+     * <p>Orders entries from the highest level to the lowest</p>
+     * <p>Ties are broken by experience and then by name</p>
+     *
+     * @param other entry to compare to
+     * @return      negative if this entry ranks higher, positive if lower
+     */
+    public int compareTo(LeaderboardEntry other) {
+        if (level != other.level) return level > other.level ? -1 : 1;
+        if (exp != other.exp) return exp > other.exp ? -1 : 1;
+        return name.compareToIgnoreCase(other.name);
+    }
+}
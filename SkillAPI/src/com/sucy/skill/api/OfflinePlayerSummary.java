@@ -0,0 +1,90 @@
+package com.sucy.skill.api;
+
+/**
+ * <p>Read-only summary of the class data of a player</p>
+ * <p>Summaries are available for offline players without loading
+ * all of their data. They are copies and do not change afterwards,
+ * so use SkillAPI.getPlayer(String) if you need to modify the data.</p>
+ */
+public final class OfflinePlayerSummary {
+
+    private final String name;
+    private final String className;
+    private final int level;
+    private final int exp;
+    private final int points;
+    private final long lastSeen;
+
+    /**
+     * <p>Constructor</p>
+     * <p>Do not use this</p>
+     *
+     * @param name      player name
+     * @param className name of the player's class or null if none
+     * @param level     class level
+     * @param exp       class experience
+     * @param points    skill points
+     * @param lastSeen  time the player was last seen in milliseconds, or 0 if unknown
+     */
+    public OfflinePlayerSummary(String name, String className, int level, int exp, int points, long lastSeen) {
+        this.name = name;
+        this.className = className;
+        this.level = level;
+        this.exp = exp;
+        this.points = points;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * @return name of the player
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * <p>Retrieves the name of the player's class</p>
+     * <p>This is null if the player has no class or their
+     * class is no longer loaded</p>
+     *
+     * @return name of the player's class or null if none
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return whether or not the player has a class
+     */
+    public boolean hasClass() {
+        return className != null;
+    }
+
+    /**
+     * @return class level of the player
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return class experience of the player
+     */
+    public int getExp() {
+        return exp;
+    }
+
+    /**
+     * @return skill points of the player
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * @return time the player was last seen in milliseconds, or 0 if unknown
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+}
@@ -3,11 +3,14 @@ package com.sucy.skill.api;
 import com.sucy.skill.BukkitHelper;
 import com.sucy.skill.PermissionNodes;
 import com.sucy.skill.SkillAPI;
+import com.sucy.skill.api.dynamic.Phase;
 import com.sucy.skill.api.event.*;
 import com.sucy.skill.api.skill.*;
 import com.sucy.skill.api.util.Protection;
 import com.sucy.skill.api.util.TargetHelper;
+import com.sucy.skill.click.ClickHistory;
 import com.sucy.skill.config.PlayerValues;
+import com.sucy.skill.data.PlayerSnapshot;
 import com.sucy.skill.language.OtherNodes;
 import com.sucy.skill.language.StatusNodes;
 import com.sucy.skill.mccore.CoreChecker;
@@ -29,10 +32,11 @@ import java.util.*;
  */
 public final class PlayerSkills extends Valued {
 
-    public static Stack<ClassSkill> skillsBeingCast = new Stack<ClassSkill>();
-
-    private HashMap<String, Integer> skills = new HashMap<String, Integer>();
+    private SkillLayout layout = SkillLayout.EMPTY;
+    private short[] levels = new short[0];
     private HashMap<Material, String> binds = new HashMap<Material, String>();
+    private long[] cooldowns = new long[0];
+    private ClickHistory clicks;
     private SkillAPI plugin;
     private String player;
     private String tree;
@@ -41,6 +45,9 @@ public final class PlayerSkills extends Valued {
     private int level;
     private int mana;
     private int exp;
+    private int changes;
+    private int savedChanges;
+    private boolean placeholder;
 
     /**
      * <p>Constructor</p>
@@ -57,6 +64,19 @@ public final class PlayerSkills extends Valued {
         this.points = plugin.getStartingPoints();
     }
 
+    /**
+     * <p>Constructor</p>
+     * <p>Do not use this</p>
+     *
+     * @param plugin      API reference
+     * @param player      player name
+     * @param placeholder whether or not the data only stands in until the real data is loaded
+     */
+    public PlayerSkills(SkillAPI plugin, String player, boolean placeholder) {
+        this(plugin, player);
+        this.placeholder = placeholder;
+    }
+
     /**
      * <p>Constructor</p>
      * <p>Do not use this</p>
@@ -66,19 +86,28 @@ public final class PlayerSkills extends Valued {
      * @param config config section to load from
      */
     public PlayerSkills(SkillAPI plugin, String player, ConfigurationSection config) {
+        this(plugin, PlayerSnapshot.load(player, config));
+    }
+
+    /**
+     * <p>Constructor</p>
+     * <p>Do not use this</p>
+     *
+     * @param plugin API reference
+     * @param data   stored data to load from
+     */
+    public PlayerSkills(SkillAPI plugin, PlayerSnapshot data) {
         this.plugin = plugin;
-        this.player = player;
+        this.player = data.getName();
+        this.savedChanges = changes;
 
-        this.level = config.getInt(PlayerValues.LEVEL);
-        this.exp = config.getInt(PlayerValues.EXP);
-        this.points = config.getInt(PlayerValues.POINTS);
-        if (config.contains(PlayerValues.MANA))
-            this.mana = config.getInt(PlayerValues.MANA);
-        if (config.contains(PlayerValues.CLASS))
-            tree = config.getString(PlayerValues.CLASS);
+        this.level = data.getLevel();
+        this.exp = data.getExp();
+        this.points = data.getPoints();
+        this.mana = data.getMana();
+        this.tree = data.getClassName();
 
         // Class skill tree
-        ConfigurationSection skillConfig = config.getConfigurationSection(PlayerValues.SKILLS);
         if (this.tree != null) {
             CustomClass tree = plugin.getClass(this.tree);
             if (tree == null) {
@@ -89,35 +118,23 @@ public final class PlayerSkills extends Valued {
             if (plugin.getServer().getPlayer(player) != null && CoreChecker.isCoreActive()) {
                 PrefixManager.setPrefix(this, tree.getPrefix(), tree.getBraceColor());
             }
-            if (skillConfig != null) {
-                for (String skill : skillConfig.getKeys(false)) {
-                    if (tree.hasSkill(plugin.getSkill(skill)))
-                        skills.put(skill, skillConfig.getInt(skill));
-                }
-            }
-
-            // Load new skills in the tree if any
-            for (String skill : tree.getSkills()) {
-                if (!skills.containsKey(skill.toLowerCase())) {
-                    skills.put(skill.toLowerCase(), 0);
-                }
+            // Skill levels, starting new skills in the tree at 0
+            setLayout(tree);
+            for (int i = 0; i < levels.length; i++) {
+                Integer skillLevel = data.getSkills().get(layout.get(i).getName().toLowerCase());
+                if (skillLevel != null) levels[i] = skillLevel.shortValue();
+                else changes++;
             }
         }
 
         // Dynamic values
-        if (config.contains(PlayerValues.VALUES)) {
-            ConfigurationSection values = config.getConfigurationSection(PlayerValues.VALUES);
-            for (String key : values.getKeys(false)) {
-                setValue(key, values.getInt(key));
-            }
+        for (Map.Entry<String, Integer> entry : data.getValues().entrySet()) {
+            super.setValue(entry.getKey(), entry.getValue());
         }
 
         // Skill bindings
-        ConfigurationSection bindConfig = config.getConfigurationSection(PlayerValues.BIND);
-        if (bindConfig != null) {
-            for (String bind : bindConfig.getKeys(false)) {
-                binds.put(Material.getMaterial(bind), bindConfig.getString(bind));
-            }
+        for (Map.Entry<String, String> entry : data.getBinds().entrySet()) {
+            binds.put(Material.getMaterial(entry.getKey()), entry.getValue());
         }
 
         // Level bar
@@ -126,16 +143,32 @@ public final class PlayerSkills extends Valued {
 
     /**
      * <p>Retrieves the details of the player's skills</p>
-     * <p>The key is the name of the skill</p>
+     * <p>The key is the lower case name of the skill</p>
      * <p>The value is the level of the skill</p>
-     * <p>Modifying this map will change the player's skill data</p>
+     * <p>This is a copy, so modifying this map will not change the
+     * player's skill data. Use upgradeSkill(ClassSkill) and
+     * downgradeSkill(ClassSkill) for that.</p>
      *
      * @return map of the names and levels of the skills the player has
      */
     public HashMap<String, Integer> getSkills() {
+        HashMap<String, Integer> skills = new HashMap<String, Integer>();
+        for (int i = 0; i < levels.length; i++) {
+            skills.put(layout.get(i).getName().toLowerCase(), (int)levels[i]);
+        }
         return skills;
     }
 
+    /**
+     * Aligns the skill levels to the skills of a class, starting them all at 0
+     *
+     * @param c class to align to or null for no skills
+     */
+    private void setLayout(CustomClass c) {
+        layout = c == null ? SkillLayout.EMPTY : c.getSkillLayout();
+        levels = new short[layout.size()];
+    }
+
     /**
      * <p>Retrieves the player reference</p>
      *
@@ -182,7 +215,7 @@ public final class PlayerSkills extends Valued {
      */
     public int getMaxMana() {
         CustomClass c = plugin.getClass(tree);
-        return c == null ? 0 : (int)c.getAttribute(ClassAttribute.MANA, level);
+        return c == null ? 0 : (int)c.getAttribute(ClassAttribute.MANA_ID, level);
     }
 
     /**
@@ -254,21 +287,22 @@ public final class PlayerSkills extends Valued {
     public boolean upgradeSkill(ClassSkill skill) {
 
         // Skill isn't available
-        if (!hasSkill(skill.getName()))
+        int index = layout.indexOf(skill);
+        if (index < 0)
             return false;
 
-        int level = getSkillLevel(skill.getName());
+        int level = levels[index];
 
         // Skill is already maxed
         if (level >= skill.getMaxLevel())
             return false;
 
         // Level requirement isn't met
-        if (this.level < (int)skill.getAttribute(SkillAttribute.LEVEL, level))
+        if (this.level < (int)skill.getAttribute(SkillAttribute.LEVEL_ID, level))
             return false;
 
         // Skill cost isn't met
-        if (points < (int)skill.getAttribute(SkillAttribute.COST, level))
+        if (points < (int)skill.getAttribute(SkillAttribute.COST_ID, level))
             return false;
 
         // Doesn't have prerequisite
@@ -280,8 +314,11 @@ public final class PlayerSkills extends Valued {
             ((PassiveSkill) skill).onUpgrade(plugin.getServer().getPlayer(getName()), level + 1);
 
         // Upgrade the skill
-        this.points -= (int)skill.getAttribute(SkillAttribute.COST, level + 1);
-        skills.put(skill.getName().toLowerCase(), level + 1);
+        this.points -= (int)skill.getAttribute(SkillAttribute.COST_ID, level + 1);
+        levels[index] = (short)(level + 1);
+        changes++;
+        plugin.getJournal().logSkill(this, skill.getName(), level + 1);
+        plugin.getJournal().logProgress(this);
 
         // If first level, call the unlock event
         if (level == 0) {
@@ -306,10 +343,11 @@ public final class PlayerSkills extends Valued {
     public boolean downgradeSkill(ClassSkill skill) {
 
         // Skill isn't available
-        if (!hasSkill(skill.getName()))
+        int index = layout.indexOf(skill);
+        if (index < 0)
             return false;
 
-        int level = getSkillLevel(skill.getName());
+        int level = levels[index];
 
         // Skill has no points
         if (level == 0)
@@ -322,9 +360,12 @@ public final class PlayerSkills extends Valued {
         }
 
         // Downgrade the skill
-        this.points += (int)skill.getAttribute(SkillAttribute.COST, level);
-        skills.put(skill.getName().toLowerCase(), level - 1);
-        if (skills.get(skill.getName().toLowerCase()) == 0) {
+        this.points += (int)skill.getAttribute(SkillAttribute.COST_ID, level);
+        levels[index] = (short)(level - 1);
+        changes++;
+        plugin.getJournal().logSkill(this, skill.getName(), level - 1);
+        plugin.getJournal().logProgress(this);
+        if (levels[index] == 0) {
             for (Map.Entry<Material, String> bind : binds.entrySet()) {
                 if (bind.getValue().equalsIgnoreCase(skill.getName())) {
                     binds.remove(bind.getKey());
@@ -343,12 +384,16 @@ public final class PlayerSkills extends Valued {
     /**
      * <p>Changes the player's class to the class with the given name</p>
      * <p>The class name is not case-sensitive</p>
+     * <p>Placeholder data ignores this.</p>
      *
      * @param className name of the target class
      */
     public void setClass(String className) {
+        if (placeholder) return;
+
         String prevTree = this.tree;
         this.tree = className;
+        changes++;
 
         // Reset stats if applicable
         if (plugin.doProfessionsReset()) {
@@ -356,7 +401,7 @@ public final class PlayerSkills extends Valued {
             points = plugin.getStartingPoints();
             exp = 0;
             stopPassiveAbilities();
-            skills.clear();
+            setLayout(null);
             binds.clear();
         }
 
@@ -372,12 +417,15 @@ public final class PlayerSkills extends Valued {
             points = plugin.getStartingPoints();
             exp = 0;
             stopPassiveAbilities();
-            skills.clear();
+            setLayout(null);
             binds.clear();
             if (CoreChecker.isCoreActive())
                 PrefixManager.clearPrefix(player);
             updateHealth();
             updateLevelBar();
+            plugin.getJournal().logClass(this);
+            plugin.getJournal().logProgress(this);
+            plugin.getLeaderboard().update(this);
 
             plugin.getServer().getPluginManager().callEvent(
                     new PlayerClassChangeEvent(this, plugin.getClass(prevTree), null));
@@ -392,34 +440,27 @@ public final class PlayerSkills extends Valued {
 
         // If not resetting, simply remove any skills no longer in the tree
         if (!plugin.doProfessionsReset()) {
-            List<String> list = new ArrayList<String>();
-            for (String skill : skills.keySet()) {
-                if (tree.hasSkill(skill)) continue;
-                list.add(skill);
-                ClassSkill s = getAPI().getSkill(skill);
-                int level = getSkillLevel(skill);
+            for (int index = 0; index < levels.length; index++) {
+                ClassSkill s = layout.get(index);
+                if (tree.hasSkill(s)) continue;
+                int level = levels[index];
                 for (int i = 1; i <= level; i++) {
-                    points += (int)s.getAttribute(SkillAttribute.COST, i);
+                    points += (int)s.getAttribute(SkillAttribute.COST_ID, i);
                 }
                 if (s instanceof PassiveSkill) {
                     ((PassiveSkill)s).stopEffects(plugin.getServer().getPlayer(player), level);
                 }
                 ArrayList<Material> keys = new ArrayList<Material>();
                 for (Map.Entry<Material, String> entry : binds.entrySet())
-                    if (entry.getValue().equalsIgnoreCase(skill))
+                    if (entry.getValue().equalsIgnoreCase(s.getName()))
                         keys.add(entry.getKey());
                 for (Material mat : keys)
                     binds.remove(mat);
             }
-            for (String skill : list) {
-                skills.remove(skill);
-            }
         }
 
         // Add any new skills from the skill tree
-        for (String skill : tree.getSkills()) {
-            skills.put(skill.toLowerCase(), 0);
-        }
+        setLayout(tree);
 
         // Set mana if just starting
         if (plugin.getClass(prevTree) == null) {
@@ -432,6 +473,9 @@ public final class PlayerSkills extends Valued {
 
         updateHealth();
         updateLevelBar();
+        plugin.getJournal().logClass(this);
+        plugin.getJournal().logProgress(this);
+        plugin.getLeaderboard().update(this);
         plugin.getServer().getPluginManager().callEvent(
                 new PlayerClassChangeEvent(this, plugin.getClass(prevTree), plugin.getClass(className)));
     }
@@ -468,7 +512,7 @@ public final class PlayerSkills extends Valued {
 
         // Apply class health
         else {
-            applyMaxHealth(plugin.getClass(tree).getAttribute(ClassAttribute.HEALTH, level) + bonusHealth);
+            applyMaxHealth(plugin.getClass(tree).getAttribute(ClassAttribute.HEALTH_ID, level) + bonusHealth);
         }
 
         // Apply health scaling
@@ -495,11 +539,11 @@ public final class PlayerSkills extends Valued {
      * <p>Stops the effects of all passive abilities for the player</p>
      */
     public void stopPassiveAbilities() {
-        for (Map.Entry<String, Integer> entry : getSkills().entrySet()) {
-            if (entry.getValue() >= 1) {
-                ClassSkill s = plugin.getSkill(entry.getKey());
-                if (s != null && s instanceof PassiveSkill)
-                    ((PassiveSkill) s).stopEffects(plugin.getServer().getPlayer(player), entry.getValue());
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] >= 1) {
+                ClassSkill s = layout.get(i);
+                if (s instanceof PassiveSkill)
+                    ((PassiveSkill) s).stopEffects(plugin.getServer().getPlayer(player), levels[i]);
             }
         }
     }
@@ -522,11 +566,11 @@ public final class PlayerSkills extends Valued {
      */
     public void startPassiveAbilities(Player player) {
         if (player == null) plugin.getLogger().info("null Player?");
-        for (Map.Entry<String, Integer> entry : getSkills().entrySet()) {
-            if (entry.getValue() >= 1) {
-                ClassSkill s = plugin.getSkill(entry.getKey());
-                if (s != null && s instanceof PassiveSkill)
-                    ((PassiveSkill) s).onInitialize(player, entry.getValue());
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] >= 1) {
+                ClassSkill s = layout.get(i);
+                if (s instanceof PassiveSkill)
+                    ((PassiveSkill) s).onInitialize(player, levels[i]);
             }
         }
     }
@@ -563,7 +607,17 @@ public final class PlayerSkills extends Valued {
      * @return     true if included in the class, false otherwise
      */
     public boolean hasSkill(String name) {
-        return skills.containsKey(name.toLowerCase());
+        return layout.indexOf(plugin.getSkill(name)) >= 0;
+    }
+
+    /**
+     * Checks if the player has the skill available
+     *
+     * @param skill skill to check
+     * @return      true if included in the class, false otherwise
+     */
+    public boolean hasSkill(ClassSkill skill) {
+        return layout.indexOf(skill) >= 0;
     }
 
     /**
@@ -586,9 +640,24 @@ public final class PlayerSkills extends Valued {
      * @throws IllegalArgumentException
      */
     public int getSkillLevel(String name) {
-        if (!skills.containsKey(name.toLowerCase()))
+        int index = layout.indexOf(plugin.getSkill(name));
+        if (index < 0)
             throw new IllegalArgumentException("Player does not have skill: " + name);
-        return skills.get(name.toLowerCase());
+        return levels[index];
+    }
+
+    /**
+     * Retrieves the level of the skill the player has unlocked
+     *
+     * @param skill skill to check
+     * @return      skill level
+     * @throws IllegalArgumentException if the player doesn't have the skill
+     */
+    public int getSkillLevel(ClassSkill skill) {
+        int index = layout.indexOf(skill);
+        if (index < 0)
+            throw new IllegalArgumentException("Player does not have skill: " + skill.getName());
+        return levels[index];
     }
 
     /**
@@ -603,19 +672,22 @@ public final class PlayerSkills extends Valued {
         Player p = plugin.getServer().getPlayer(player);
         if (p.getOpenInventory() != null)
             p.closeInventory();
-        p.openInventory(plugin.getClass(tree).getTree().getInventory(this, skills));
+        p.openInventory(plugin.getClass(tree).getTree().getInventory(this, getSkills()));
         return true;
     }
 
     /**
      * <p>Binds a player's skill to the given material</p>
      * <p>The skill name is not case-sensitive</p>
+     * <p>Placeholder data ignores this.</p>
      *
      * @param material material to bind to
      * @param skill    name of skill to be bound
      * @return         previously bound skill if any
      */
     public String bind(Material material, String skill) {
+        if (placeholder) return binds.get(material);
+        changes++;
         return binds.put(material, skill);
     }
 
@@ -633,12 +705,15 @@ public final class PlayerSkills extends Valued {
     /**
      * <p>Unbinds a skill from the given material</p>
      * <p>If no skill is bound to the material, this does nothing</p>
+     * <p>Placeholder data ignores this.</p>
      *
      * @param material material to unbind
      */
     public void unbind(Material material) {
-        if (binds.containsKey(material))
+        if (!placeholder && binds.containsKey(material)) {
             binds.remove(material);
+            changes++;
+        }
     }
 
     /**
@@ -658,6 +733,7 @@ public final class PlayerSkills extends Valued {
 
         // Add the experience
         exp += event.getExp();
+        changes++;
 
         // Level up if there's enough exp
         int levels = 0;
@@ -666,9 +742,10 @@ public final class PlayerSkills extends Valued {
             levels++;
         }
 
-        // Level the player up
-        if (levels > 0) levelUp(levels);
+        // Level the player up, recording the progress once at the end
+        if (levels > 0) addLevels(levels);
         else updateLevelBar();
+        recordProgress();
     }
 
     /**
@@ -681,13 +758,25 @@ public final class PlayerSkills extends Valued {
     public void levelUp(int amount) {
         if (plugin.getClass(tree) == null) throw new IllegalArgumentException("Player cannot level up while not having a class");
 
+        if (addLevels(amount)) recordProgress();
+    }
+
+    /**
+     * <p>Levels the player up without recording the progress</p>
+     * <p>The caller records the progress once it is done changing it.</p>
+     *
+     * @param amount amount of levels to go up
+     * @return       true if the player levelled up, false otherwise
+     */
+    private boolean addLevels(int amount) {
         CustomClass skillTree = plugin.getClass(tree);
         if (amount + level > skillTree.getMaxLevel()) amount = skillTree.getMaxLevel() - level;
-        if (amount <= 0) return;
+        if (amount <= 0) return false;
 
         // Add to stats
         level += amount;
         points += amount * plugin.getPointsPerLevel();
+        changes++;
         updateHealth();
 
         // Display a message
@@ -717,6 +806,15 @@ public final class PlayerSkills extends Valued {
                 new PlayerLevelUpEvent(this, amount));
 
         updateLevelBar();
+        return true;
+    }
+
+    /**
+     * Records the current level and experience in the journal and leaderboard
+     */
+    private void recordProgress() {
+        plugin.getJournal().logProgress(this);
+        plugin.getLeaderboard().update(this);
     }
 
     /**
@@ -923,119 +1021,300 @@ public final class PlayerSkills extends Valued {
         if (skill == null) throw new IllegalArgumentException("Invalid skill: " + skillName);
 
         SkillStatus status = skill.checkStatus(this);
-        int level = getSkillLevel(skill.getName());
-        skillsBeingCast.push(skill);
-
-        // Silenced
-        if (hasStatus(Status.SILENCE) || hasStatus(Status.STUN)) {
-            String node;
-            int left;
-            if (hasStatus(Status.STUN)) {
-                node = StatusNodes.STUNNED;
-                left = getTimeLeft(Status.STUN);
-            }
-            else {
-                node = StatusNodes.SILENCED;
-                left = getTimeLeft(Status.SILENCE);
+        int level = getSkillLevel(skill);
+        CastContext context = CastContext.begin(getPlayer(), this, skill, level, Phase.ACTIVE, null);
+        try {
+
+            // Silenced
+            if (hasStatus(Status.SILENCE) || hasStatus(Status.STUN)) {
+                String node;
+                int left;
+                if (hasStatus(Status.STUN)) {
+                    node = StatusNodes.STUNNED;
+                    left = getTimeLeft(Status.STUN);
+                }
+                else {
+                    node = StatusNodes.SILENCED;
+                    left = getTimeLeft(Status.SILENCE);
+                }
+                plugin.sendStatusMessage(plugin.getServer().getPlayer(player), node, left);
             }
-            plugin.sendStatusMessage(plugin.getServer().getPlayer(player), node, left);
-        }
 
-        // Skill is on cooldown
-        else if (status == SkillStatus.ON_COOLDOWN) {
-            List<String> messages = plugin.getMessages(OtherNodes.ON_COOLDOWN, true);
-            for (String message : messages) {
-                message = message.replace("{cooldown}", skill.getCooldown(this) + "")
-                        .replace("{skill}", skill.getName());
+            // Skill is on cooldown
+            else if (status == SkillStatus.ON_COOLDOWN) {
+                List<String> messages = plugin.getMessages(OtherNodes.ON_COOLDOWN, true);
+                for (String message : messages) {
+                    message = message.replace("{cooldown}", skill.getCooldown(this) + "")
+                            .replace("{skill}", skill.getName());
 
-                plugin.getServer().getPlayer(player).sendMessage(message);
+                    plugin.getServer().getPlayer(player).sendMessage(message);
+                }
             }
-        }
 
-        // Skill requires more mana
-        else if (status == SkillStatus.MISSING_MANA) {
-            List<String> messages = plugin.getMessages(OtherNodes.NO_MANA, true);
-            int cost = (int)skill.getAttribute(SkillAttribute.MANA, level);
-            for (String message : messages) {
-                message = message.replace("{missing}", (cost - getMana()) + "")
-                        .replace("{mana}", getMana() + "")
-                        .replace("{cost}", cost + "")
-                        .replace("{skill}", skill.getName());
-
-                plugin.getServer().getPlayer(player).sendMessage(message);
+            // Skill requires more mana
+            else if (status == SkillStatus.MISSING_MANA) {
+                List<String> messages = plugin.getMessages(OtherNodes.NO_MANA, true);
+                int cost = (int)skill.getAttribute(SkillAttribute.MANA_ID, level);
+                for (String message : messages) {
+                    message = message.replace("{missing}", (cost - getMana()) + "")
+                            .replace("{mana}", getMana() + "")
+                            .replace("{cost}", cost + "")
+                            .replace("{skill}", skill.getName());
+
+                    plugin.getServer().getPlayer(player).sendMessage(message);
+                }
             }
-        }
 
-        // Check for skill shots
-        else if (skill instanceof SkillShot) {
+            // Check for skill shots
+            else if (skill instanceof SkillShot) {
 
-            Player p = getPlayer();
-            PlayerCastSkillEvent event = new PlayerCastSkillEvent(this, skill);
-            plugin.getServer().getPluginManager().callEvent(event);
+                Player p = getPlayer();
+                PlayerCastSkillEvent event = new PlayerCastSkillEvent(this, skill);
+                plugin.getServer().getPluginManager().callEvent(event);
 
-            // Don't cast if cancelled
-            if (!event.isCancelled()) {
+                // Don't cast if cancelled
+                if (!event.isCancelled()) {
 
-                try {
+                    try {
 
-                    // Try to cast the skill
-                    if (((SkillShot) skill).cast(p, getSkillLevel(skill.getName()))) {
+                        // Try to cast the skill
+                        if (((SkillShot) skill).cast(p, getSkillLevel(skill))) {
 
-                        // Send the message
-                        plugin.sendSkillMessage(skill, p);
+                            // Send the message
+                            plugin.sendSkillMessage(skill, p);
 
-                        // Start the cooldown
-                        skill.startCooldown(this);
+                            // Start the cooldown
+                            skill.startCooldown(this);
 
-                        // Use mana if successful
-                        if (plugin.isManaEnabled()) useMana((int)skill.getAttribute(SkillAttribute.MANA, level));
+                            // Use mana if successful
+                            if (plugin.isManaEnabled()) useMana((int)skill.getAttribute(SkillAttribute.MANA_ID, level));
+                        }
                     }
-                }
 
-                // Problem with the skill
-                catch (Exception ex) {
-                    ex.printStackTrace();
-                    getAPI().getLogger().severe("Failed to cast skill - " + skill.getName() + ": Internal skill error");
+                    // Problem with the skill
+                    catch (Exception ex) {
+                        ex.printStackTrace();
+                        getAPI().getLogger().severe("Failed to cast skill - " + skill.getName() + ": Internal skill error");
+                    }
                 }
             }
-        }
 
-        // Check for Target Skills
-        else if (skill instanceof TargetSkill) {
+            // Check for Target Skills
+            else if (skill instanceof TargetSkill) {
 
-            // Must have a target
-            Player p = getPlayer();
-            LivingEntity target = TargetHelper.getLivingTarget(p, skill.getAttribute(SkillAttribute.RANGE, level));
-            PlayerCastSkillEvent event = new PlayerCastSkillEvent(this, skill);
-            plugin.getServer().getPluginManager().callEvent(event);
+                // Must have a target
+                Player p = getPlayer();
+                LivingEntity target = TargetHelper.getLivingTarget(p, skill.getAttribute(SkillAttribute.RANGE_ID, level));
+                PlayerCastSkillEvent event = new PlayerCastSkillEvent(this, skill);
+                plugin.getServer().getPluginManager().callEvent(event);
 
-            // Don't cast if cancelled
-            if (target != null && !event.isCancelled()) {
+                // Don't cast if cancelled
+                if (target != null && !event.isCancelled()) {
 
-                try {
-                    // Try to cast the skill
-                    if (((TargetSkill) skill).cast(p, target, level, Protection.isAlly(p, target))) {
+                    try {
+                        // Try to cast the skill
+                        if (((TargetSkill) skill).cast(p, target, level, Protection.isAlly(p, target))) {
 
-                        // Send the message
-                        plugin.sendSkillMessage(skill, p);
+                            // Send the message
+                            plugin.sendSkillMessage(skill, p);
 
-                        // Apply the cooldown
-                        skill.startCooldown(this);
+                            // Apply the cooldown
+                            skill.startCooldown(this);
 
-                        // Use mana if successful
-                        if (plugin.isManaEnabled()) useMana((int)skill.getAttribute(SkillAttribute.MANA, level));
+                            // Use mana if successful
+                            if (plugin.isManaEnabled()) useMana((int)skill.getAttribute(SkillAttribute.MANA_ID, level));
+                        }
                     }
-                }
 
-                // Problem with the skill
-                catch (Exception ex) {
-                    ex.printStackTrace();
-                    getAPI().getLogger().severe("Failed to cast skill - " + skill.getName() + ": Internal skill error");
+                    // Problem with the skill
+                    catch (Exception ex) {
+                        ex.printStackTrace();
+                        getAPI().getLogger().severe("Failed to cast skill - " + skill.getName() + ": Internal skill error");
+                    }
                 }
             }
         }
+        finally {
+            CastContext.end(context);
+        }
+    }
+
+    /**
+     * <p>Sets a value</p>
+     * <p>If the value doesn't exist, it is created</p>
+     * <p>Placeholder data ignores this.</p>
+     *
+     * @param key   value key
+     * @param value value
+     */
+    @Override
+    public void setValue(String key, int value) {
+        if (placeholder) return;
+        super.setValue(key, value);
+        changes++;
+    }
+
+    /**
+     * <p>Adds an amount to a value</p>
+     * <p>If the value doesn't exist, it creates the value with the amount</p>
+     * <p>Placeholder data ignores this.</p>
+     *
+     * @param key   value key
+     * @param value amount to add
+     */
+    @Override
+    public void addValue(String key, int value) {
+        if (placeholder) return;
+        super.addValue(key, value);
+        changes++;
+    }
+
+    /**
+     * <p>Subtracts an amount from a value</p>
+     * <p>If the value doesn't exist, it creates the value with the negative amount</p>
+     * <p>Placeholder data ignores this.</p>
+     *
+     * @param key   value key
+     * @param value amount to subtract
+     */
+    @Override
+    public void subtractValue(String key, int value) {
+        if (placeholder) return;
+        super.subtractValue(key, value);
+        changes++;
+    }
+
+    /**
+     * <p>Flags the player data as changed so it is saved next time</p>
+     * <p>The methods of this class flag it themselves, so this is
+     * only needed when the data is changed some other way.</p>
+     */
+    public void markDirty() {
+        changes++;
+    }
+
+    /**
+     * <p>Checks whether or not the data changed since it was last saved</p>
+     * <p>Placeholder data is never saved so it is never dirty. Mana
+     * changes constantly from regeneration, so it doesn't count as a
+     * change on its own and is saved along with the next real one.</p>
+     *
+     * @return true if the data changed since it was last saved
+     */
+    public boolean isDirty() {
+        return !placeholder && changes != savedChanges;
+    }
+
+    /**
+     * <p>Checks whether or not this data only stands in for the player's
+     * real data while it is being loaded</p>
+     * <p>Placeholder data has no class, so it can't gain experience or
+     * skills, and it ignores changes to the class, binds and values.
+     * Those would otherwise be lost when the real data replaces it.</p>
+     *
+     * @return true if placeholder data, false otherwise
+     */
+    public boolean isPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * <p>Retrieves the click combo history of the player</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return click combo history
+     */
+    public ClickHistory getClickHistory() {
+        if (clicks == null) clicks = new ClickHistory(plugin, this);
+        return clicks;
+    }
+
+    /**
+     * <p>Gets the time a skill's cooldown was last started</p>
+     * <p>Use the cooldown methods of ClassSkill instead of this.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param skillId id of the skill
+     * @return        start time in milliseconds or 0 if never started
+     */
+    public long getCooldownStart(int skillId) {
+        return skillId >= 0 && skillId < cooldowns.length ? cooldowns[skillId] : 0;
+    }
+
+    /**
+     * <p>Sets the time a skill's cooldown was last started</p>
+     * <p>Use the cooldown methods of ClassSkill instead of this.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param skillId id of the skill
+     * @param time    start time in milliseconds
+     */
+    public void setCooldownStart(int skillId, long time) {
+        if (skillId < 0) return;
+        if (skillId >= cooldowns.length) {
+            cooldowns = Arrays.copyOf(cooldowns, Math.max(skillId + 1, cooldowns.length * 2));
+        }
+        cooldowns[skillId] = time;
+    }
 
-        skillsBeingCast.clear();
+    /**
+     * <p>Retrieves the cooldown start times of the player indexed by skill id</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return cooldown start times
+     */
+    public long[] getCooldownStarts() {
+        return cooldowns;
+    }
+
+    /**
+     * <p>Sets the cooldown start times of the player indexed by skill id</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param starts cooldown start times
+     */
+    public void setCooldownStarts(long[] starts) {
+        cooldowns = starts;
+    }
+
+    /**
+     * <p>Gets when the last running cooldown of the player's class skills ends</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return end time in milliseconds or 0 if no cooldown was started
+     */
+    public long getCooldownEnd() {
+        long end = 0;
+        for (int i = 0; i < layout.size(); i++) {
+            ClassSkill skill = layout.get(i);
+            long start = getCooldownStart(skill.getId());
+            if (start == 0) continue;
+            long length = (long)(1000 * skill.getAttribute(SkillAttribute.COOLDOWN_ID, getSkillLevel(skill)));
+            end = Math.max(end, start + length);
+        }
+        return end;
+    }
+
+    /**
+     * <p>Copies the current player data so it can be saved later</p>
+     * <p>This marks the data as saved, so it should only be used
+     * when the snapshot is actually going to be written.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return copy of the current data
+     */
+    public PlayerSnapshot snapshot() {
+        HashMap<String, String> bindNames = new HashMap<String, String>();
+        for (Map.Entry<Material, String> entry : binds.entrySet()) {
+            if (entry.getKey() == null) continue;
+            bindNames.put(entry.getKey().name(), entry.getValue());
+        }
+        HashMap<String, Integer> valueMap = new HashMap<String, Integer>();
+        for (String key : getValueNames()) {
+            valueMap.put(key, getValue(key));
+        }
+        savedChanges = changes;
+        return new PlayerSnapshot(player, tree, level, exp, points, mana, getSkills(), bindNames, valueMap);
     }
 
     /**
@@ -1054,8 +1333,8 @@ public final class PlayerSkills extends Valued {
         config.set(path + PlayerValues.POINTS, points);
         config.set(path + PlayerValues.MANA, mana);
         saveValues(config.createSection(path + PlayerValues.VALUES));
-        for (Map.Entry<String, Integer> entry : skills.entrySet()) {
-            config.set(path + PlayerValues.SKILLS + "." + entry.getKey(), entry.getValue());
+        for (int i = 0; i < levels.length; i++) {
+            config.set(path + PlayerValues.SKILLS + "." + layout.get(i).getName().toLowerCase(), (int)levels[i]);
         }
         for (Map.Entry<Material, String> entry : binds.entrySet()) {
             if (entry.getKey() == null) continue;
@@ -0,0 +1,73 @@
+package com.sucy.skill.api;
+
+import com.sucy.skill.api.skill.ClassSkill;
+
+import java.util.Arrays;
+
+/**
+ * <p>Fixed order of the skills available to a class</p>
+ * <p>Player skill levels are kept in arrays aligned to this order.
+ * The position of a skill is found through its id, so no names
+ * need to be looked up.</p>
+ * <p>Layouts never change. When the skills of a class change, the
+ * class makes a new layout.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public final class SkillLayout {
+
+    /**
+     * Layout for players without a class
+     */
+    public static final SkillLayout EMPTY = new SkillLayout(new ClassSkill[0]);
+
+    private final ClassSkill[] skills;
+    private final int[] slots;
+
+    /**
+     * Constructor
+     *
+     * @param skills registered skills in the layout without duplicates
+     */
+    public SkillLayout(ClassSkill[] skills) {
+        this.skills = skills;
+
+        int maxId = -1;
+        for (ClassSkill skill : skills) {
+            maxId = Math.max(maxId, skill.getId());
+        }
+        slots = new int[maxId + 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < skills.length; i++) {
+            if (skills[i].getId() >= 0) slots[skills[i].getId()] = i;
+        }
+    }
+
+    /**
+     * @return number of skills in the layout
+     */
+    public int size() {
+        return skills.length;
+    }
+
+    /**
+     * Retrieves the skill at a position in the layout
+     *
+     * @param index position in the layout
+     * @return      skill at the position
+     */
+    public ClassSkill get(int index) {
+        return skills[index];
+    }
+
+    /**
+     * Retrieves the position of a skill in the layout
+     *
+     * @param skill skill to find
+     * @return      position of the skill or -1 if it isn't in the layout
+     */
+    public int indexOf(ClassSkill skill) {
+        if (skill == null) return -1;
+        int id = skill.getId();
+        return id >= 0 && id < slots.length ? slots[id] : -1;
+    }
+}
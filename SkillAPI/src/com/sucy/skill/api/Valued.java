@@ -2,15 +2,22 @@ package com.sucy.skill.api;
 
 import org.bukkit.configuration.ConfigurationSection;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
- * Base class for objects that have dynamic values
+ * <p>Base class for objects that have dynamic values</p>
+ * <p>Values are kept in a small open-addressing table of names and
+ * primitive ints that is only allocated once the first value is set,
+ * so objects without values cost nothing and updates never box.</p>
  */
 public abstract class Valued {
 
-    private HashMap<String, Integer> values = new HashMap<String, Integer>();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys;
+    private int[] values;
+    private int size;
 
     /**
      * <p>Retrieves a set value</p>
@@ -20,7 +27,8 @@ public abstract class Valued {
      * @return    value
      */
     public int getValue(String key) {
-        return values.get(key);
+        int slot = find(key);
+        return slot < 0 ? 0 : values[slot];
     }
 
     /**
@@ -31,7 +39,7 @@ public abstract class Valued {
      * @param value value
      */
     public void setValue(String key, int value) {
-        values.put(key, value);
+        values[insert(key)] = value;
     }
 
     /**
@@ -41,7 +49,7 @@ public abstract class Valued {
      * @return    true if set, false otherwise
      */
     public boolean isSet(String key) {
-        return values.containsKey(key);
+        return find(key) >= 0;
     }
 
     /**
@@ -52,7 +60,7 @@ public abstract class Valued {
      * @param value amount to add
      */
     public void addValue(String key, int value) {
-        values.put(key, values.get(key) + value);
+        values[insert(key)] += value;
     }
 
     /**
@@ -63,7 +71,7 @@ public abstract class Valued {
      * @param value amount to subtract
      */
     public void subtractValue(String key, int value) {
-        values.put(key, values.get(key) - value);
+        values[insert(key)] -= value;
     }
 
     /**
@@ -75,14 +83,19 @@ public abstract class Valued {
      * @return       true if has at least that much, false otherwise
      */
     public boolean hasValue(String key, int amount) {
-        return values.get(key) >= amount;
+        return getValue(key) >= amount;
     }
 
     /**
-     * @return names of all set values
+     * @return copy of the names of all set values
      */
     public Set<String> getValueNames() {
-        return values.keySet();
+        Set<String> names = new HashSet<String>();
+        if (keys == null) return names;
+        for (String key : keys) {
+            if (key != null) names.add(key);
+        }
+        return names;
     }
 
     /**
@@ -91,8 +104,9 @@ public abstract class Valued {
      * @param config configuration section to save to
      */
     public void saveValues(ConfigurationSection config) {
-        for (String key : values.keySet()) {
-            config.set(key, values.get(key));
+        if (keys == null) return;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) config.set(keys[i], values[i]);
         }
     }
 
@@ -107,7 +121,75 @@ public abstract class Valued {
 
         // Load values
         for (String key : config.getKeys(false)) {
-            values.put(key, config.getInt(key));
+            values[insert(key)] = config.getInt(key);
+        }
+    }
+
+    /**
+     * Finds the slot of a value
+     *
+     * @param key value key
+     * @return    slot of the value or -1 if it isn't set
+     */
+    private int find(String key) {
+        if (keys == null) return -1;
+        int mask = keys.length - 1;
+        int slot = key.hashCode() & mask;
+        while (keys[slot] != null) {
+            if (keys[slot] == key || keys[slot].equals(key)) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a value, adding it with an amount of 0 if it isn't set
+     *
+     * @param key value key
+     * @return    slot of the value
+     */
+    private int insert(String key) {
+        if (keys == null) {
+            keys = new String[INITIAL_CAPACITY];
+            values = new int[INITIAL_CAPACITY];
+        }
+
+        // Look for the value or an empty slot
+        int mask = keys.length - 1;
+        int slot = key.hashCode() & mask;
+        while (keys[slot] != null) {
+            if (keys[slot] == key || keys[slot].equals(key)) return slot;
+            slot = (slot + 1) & mask;
+        }
+
+        // Grow when half full so probes stay short
+        if (size + 1 > keys.length / 2) {
+            grow();
+            return insert(key);
+        }
+
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Doubles the size of the table
+     */
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = oldKeys[i].hashCode() & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
         }
     }
 }
@@ -0,0 +1,40 @@
+package com.sucy.skill.api.dynamic;
+
+import com.sucy.skill.api.Attributed;
+
+/**
+ * <p>Resolved name of an attribute used by a dynamic skill mechanic</p>
+ * <p>The full name of a mechanic's attribute depends on the phase
+ * prefix and on whether or not it is aliased by target. Keys are
+ * resolved once when the skill loads so casting the skill doesn't
+ * have to build any names.</p>
+ */
+public final class AttributeKey {
+
+    private final String name;
+    private final int id;
+
+    /**
+     * Constructor
+     *
+     * @param name full attribute name
+     */
+    public AttributeKey(String name) {
+        this.name = name;
+        this.id = Attributed.getAttributeId(name);
+    }
+
+    /**
+     * @return full name of the attribute
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return id of the attribute
+     */
+    public int getId() {
+        return id;
+    }
+}
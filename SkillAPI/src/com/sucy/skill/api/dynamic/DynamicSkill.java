@@ -1,6 +1,7 @@
 package com.sucy.skill.api.dynamic;
 
 import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.skill.ClassSkill;
 import com.sucy.skill.api.skill.PassiveSkill;
 import com.sucy.skill.api.skill.SkillShot;
@@ -30,15 +31,21 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         ALIASED = "aliased",
         EMBED = "embed",
         ITEM_REQ = "item-req",
-        PERIOD = "Period";
+        PERIOD = "Period",
+        RANGE = "Range",
+        RADIUS = "Radius";
 
     public final List<Mechanic> activeMechanics = new ArrayList<Mechanic>();
     public final List<Mechanic> passiveMechanics = new ArrayList<Mechanic>();
     public final List<Mechanic> embedMechanics = new ArrayList<Mechanic>();
-    public String prefix = "";
 
     private final HashMap<String, PassiveTask> tasks = new HashMap<String, PassiveTask>();
     private final HashMap<String, Boolean> aliased = new HashMap<String, Boolean>();
+    private final ArrayList<HashMap<String, AttributeKey>> keys = new ArrayList<HashMap<String, AttributeKey>>();
+
+    private ExecutionPlan activePlan = ExecutionPlan.EMPTY;
+    private ExecutionPlan passivePlan = ExecutionPlan.EMPTY;
+    private ExecutionPlan embedPlan = ExecutionPlan.EMPTY;
 
     private String itemReq;
 
@@ -52,6 +59,11 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
 
         // Default attributes
         validateDefaults();
+
+        // Attribute keys for each phase and target
+        for (int i = 0; i < Phase.values().length * Target.values().length; i++) {
+            keys.add(new HashMap<String, AttributeKey>());
+        }
     }
 
     /**
@@ -61,6 +73,7 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
      */
     @Override
     public void update(ConfigurationSection config) {
+        clearIndicatorCache();
 
         // Basic values
         type = SkillType.valueOf(config.getString(SkillValues.TYPE, type.name()).toUpperCase().replace(" ", "_"));
@@ -94,8 +107,8 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         ConfigurationSection passiveSection = config.getConfigurationSection(PASSIVE);
         if (passiveSection != null) {
             for (String key : passiveSection.getKeys(false)) {
-                Mechanic mechanic = new Mechanic(this, passiveSection.getConfigurationSection(key), "Passive ");
-                checkConflicts(passiveMechanics, mechanic, "Passive ");
+                Mechanic mechanic = new Mechanic(this, passiveSection.getConfigurationSection(key), Phase.PASSIVE.getPrefix());
+                checkConflicts(passiveMechanics, mechanic, Phase.PASSIVE.getPrefix());
                 passiveMechanics.add(mechanic);
                 mechanic.getTarget().applyDefaults(this);
             }
@@ -105,8 +118,8 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         ConfigurationSection activeSection = config.getConfigurationSection(ACTIVE);
         if (activeSection != null) {
             for (String key : activeSection.getKeys(false)) {
-                Mechanic mechanic = new Mechanic(this, activeSection.getConfigurationSection(key), "");
-                checkConflicts(activeMechanics, mechanic, "");
+                Mechanic mechanic = new Mechanic(this, activeSection.getConfigurationSection(key), Phase.ACTIVE.getPrefix());
+                checkConflicts(activeMechanics, mechanic, Phase.ACTIVE.getPrefix());
                 activeMechanics.add(mechanic);
                 mechanic.getTarget().applyDefaults(this);
             }
@@ -116,9 +129,9 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         ConfigurationSection embedSection = config.getConfigurationSection(EMBED);
         if (embedSection != null) {
             for (String key : embedSection.getKeys(false)) {
-                Mechanic mechanic = new Mechanic(this, embedSection.getConfigurationSection(key), "Embed ");
+                Mechanic mechanic = new Mechanic(this, embedSection.getConfigurationSection(key), Phase.EMBED.getPrefix());
                 if (mechanic.getTarget() == Target.LINEAR) continue;
-                checkConflicts(embedMechanics, mechanic, "Embed ");
+                checkConflicts(embedMechanics, mechanic, Phase.EMBED.getPrefix());
                 embedMechanics.add(mechanic);
                 mechanic.getTarget().applyDefaults(this);
             }
@@ -128,6 +141,9 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         if (passiveMechanics.size() > 0) {
             checkDefault(PERIOD, 3, 0);
         }
+
+        // Compile the mechanics
+        compile();
     }
 
     /**
@@ -149,30 +165,77 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
     }
 
     /**
-     * getAttribute override to handle passive prefixes
+     * getAttribute override to handle phase prefixes
      *
      * @param key    attribute key
+     * @param phase  phase of the mechanic
      * @param target target of the attribute
      * @param level  level of the skill
      * @return       attribute value at the level
      */
-    public double getAttribute(String key, Target target, int level) {
-        if (!key.equals("Range") && !key.equals("Radius")) key = this.prefix + target.getAlias(this, key);
-        else key = target.getAlias(this, key);
-        return getAttribute(key, level);
+    public double getAttribute(String key, Phase phase, Target target, int level) {
+        return getAttribute(getAttributeKey(key, phase, target).getId(), level);
     }
 
     /**
-     * hasAttribute override to handle passive prefixes
+     * hasAttribute override to handle phase prefixes
      *
      * @param key    attribute key
+     * @param phase  phase of the mechanic
      * @param target target of the attribute
      * @return       attribute value at the level
      */
-    public boolean hasAttribute(String key, Target target) {
-        if (!key.equals("Range") && !key.equals("Radius")) key = this.prefix + target.getAlias(this, key);
-        else key = target.getAlias(this, key);
-        return hasAttribute(key);
+    public boolean hasAttribute(String key, Phase phase, Target target) {
+        return hasAttribute(getAttributeKey(key, phase, target).getId());
+    }
+
+    /**
+     * <p>Retrieves the resolved key of a mechanic attribute</p>
+     * <p>Range and Radius are shared by all phases so they never get
+     * the phase prefix. Keys are resolved when the skill is loaded, so
+     * this is only a lookup for the attributes of added mechanics.</p>
+     *
+     * @param key    attribute name used by the mechanic
+     * @param phase  phase of the mechanic
+     * @param target target of the mechanic
+     * @return       resolved attribute key
+     */
+    public AttributeKey getAttributeKey(String key, Phase phase, Target target) {
+        HashMap<String, AttributeKey> resolved = keys.get(phase.ordinal() * Target.values().length + target.ordinal());
+        AttributeKey attributeKey = resolved.get(key);
+        if (attributeKey == null) {
+            String name = target.getAlias(this, key);
+            if (!key.equals(RANGE) && !key.equals(RADIUS)) name = phase.getPrefix() + name;
+            attributeKey = new AttributeKey(name);
+            resolved.put(key, attributeKey);
+        }
+        return attributeKey;
+    }
+
+    /**
+     * <p>Retrieves the compiled mechanics of a phase of the skill</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param phase phase of the mechanics
+     * @return      execution plan of the phase
+     */
+    public ExecutionPlan getPlan(Phase phase) {
+        if (phase == Phase.PASSIVE) return passivePlan;
+        if (phase == Phase.EMBED) return embedPlan;
+        return activePlan;
+    }
+
+    /**
+     * Resolves the attribute keys of all mechanics and compiles
+     * the execution plan of each phase
+     */
+    private void compile() {
+        for (HashMap<String, AttributeKey> resolved : keys) {
+            resolved.clear();
+        }
+        activePlan = new ExecutionPlan(this, activeMechanics, Phase.ACTIVE);
+        passivePlan = new ExecutionPlan(this, passiveMechanics, Phase.PASSIVE);
+        embedPlan = new ExecutionPlan(this, embedMechanics, Phase.EMBED);
     }
 
     /**
@@ -183,10 +246,11 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
      * @param group    group of the mechanic
      */
     public void addActiveMechanic(IMechanic mechanic, Target target, Group group) {
-        Mechanic active = new Mechanic(this, mechanic, target, group, "");
-        checkConflicts(activeMechanics, active, "");
+        Mechanic active = new Mechanic(this, mechanic, target, group, Phase.ACTIVE.getPrefix());
+        checkConflicts(activeMechanics, active, Phase.ACTIVE.getPrefix());
         target.applyDefaults(this);
         activeMechanics.add(active);
+        compile();
     }
 
     /**
@@ -197,10 +261,11 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
      * @param group    group of the mechanic
      */
     public void addPassiveMechanic(IMechanic mechanic, Target target, Group group) {
-        Mechanic passive = new Mechanic(this, mechanic, target, group, "Passive ");
-        checkConflicts(passiveMechanics, passive, "Passive ");
+        Mechanic passive = new Mechanic(this, mechanic, target, group, Phase.PASSIVE.getPrefix());
+        checkConflicts(passiveMechanics, passive, Phase.PASSIVE.getPrefix());
         target.applyDefaults(this);
         passiveMechanics.add(passive);
+        compile();
     }
 
     /**
@@ -212,10 +277,11 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
      */
     public void addEmbedMechanic(IMechanic mechanic, Target target, Group group) {
         if (target == Target.LINEAR) return;
-        Mechanic embed = new Mechanic(this, mechanic, target, group, "Embed ");
-        checkConflicts(embedMechanics, embed, "Embed ");
+        Mechanic embed = new Mechanic(this, mechanic, target, group, Phase.EMBED.getPrefix());
+        checkConflicts(embedMechanics, embed, Phase.EMBED.getPrefix());
         target.applyDefaults(this);
         embedMechanics.add(embed);
+        compile();
     }
 
     /**
@@ -276,7 +342,7 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
         if (passiveMechanics.size() == 0) return;
 
         // Start a new task
-        PlayerSkills data = api.getPlayer(player.getName());
+        PlayerSkills data = api.getPlayer(player);
         PassiveTask task = new PassiveTask(this, data, player.getName());
         int level = data.getSkillLevel(getName());
         int period = (int)(getAttribute(PERIOD, level) * 20);
@@ -322,13 +388,14 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
     public boolean cast(Player player, int level) {
         if (!hasItemReq(player)) return false;
 
-        prefix = "";
-        PlayerSkills data = api.getPlayer(player.getName());
-        boolean successful = false;
-        for (Mechanic mechanic : activeMechanics) {
-            successful = mechanic.resolve(player, data, this) || successful;
+        PlayerSkills data = api.getPlayer(player);
+        CastContext context = CastContext.begin(player, data, this, level, Phase.ACTIVE, player.getLocation());
+        try {
+            return activePlan.execute(context);
+        }
+        finally {
+            CastContext.end(context);
         }
-        return successful;
     }
 
     /**
@@ -441,12 +508,13 @@ public class DynamicSkill extends ClassSkill implements SkillShot, PassiveSkill
             }
 
             // Use the effect
-            prefix = "Passive ";
-            beginUsage();
-            for (Mechanic mechanic : skill.passiveMechanics) {
-                mechanic.resolve(player, data, skill);
+            CastContext context = CastContext.begin(player, data, skill, data.getSkillLevel(skill), Phase.PASSIVE, player.getLocation());
+            try {
+                skill.passivePlan.execute(context);
+            }
+            finally {
+                CastContext.end(context);
             }
-            stopUsage();
         }
     }
 }
@@ -2,12 +2,11 @@ package com.sucy.skill.api.dynamic;
 
 import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.Valued;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.Location;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,21 +14,25 @@ import java.util.List;
  */
 public class EmbedData extends Valued {
 
+    private static final AttributeKey RADIUS = new AttributeKey("Radius");
+
     private Player player;
     private PlayerSkills data;
     private DynamicSkill skill;
+    private int level;
 
     /**
-     * Constructor
+     * <p>Constructor</p>
+     * <p>The details of the context are copied so the embedded
+     * effects can be resolved after the cast ends.</p>
      *
-     * @param player        player with the skill
-     * @param data          data of player with the skill
-     * @param skill         skill being used
+     * @param context context of the dynamic skill being used
      */
-    public EmbedData(Player player, PlayerSkills data, DynamicSkill skill) {
-        this.player = player;
-        this.data = data;
-        this.skill = skill;
+    public EmbedData(CastContext context) {
+        this.player = context.getCaster();
+        this.data = context.getData();
+        this.skill = (DynamicSkill)context.getSkill();
+        this.level = context.getLevel();
     }
 
     /**
@@ -46,23 +49,33 @@ public class EmbedData extends Valued {
      */
     public void resolveNonTarget(Location loc) {
         if (!player.isValid()) return;
-        skill.prefix = "Embed ";
-        for (Mechanic mechanic : skill.embedMechanics) {
-            if (mechanic.getTarget() == Target.TARGET || mechanic.getTarget() == Target.TARGET_AREA) continue;
-            List<LivingEntity> targets;
+        CastContext context = CastContext.begin(player, data, skill, level, Phase.EMBED, loc);
+        try {
+            ExecutionPlan plan = skill.getPlan(Phase.EMBED);
+            List<LivingEntity> targets = context.getStepTargets();
+            boolean found = false;
+            for (int i = 0; i < plan.size(); i++) {
+                Target type = plan.getTarget(i);
+                if (type == Target.TARGET || type == Target.TARGET_AREA) continue;
 
-            // Get the targets
-            if (mechanic.getTarget() == Target.AREA) targets = area(loc, skill, data.getSkillLevel(skill.getName()));
-            else {
-                targets = new ArrayList<LivingEntity>();
-                if (mechanic.getTarget() == Target.SELF) targets.add(player);
+                // Get the targets
+                targets.clear();
+                if (type == Target.AREA) {
+                    List<LivingEntity> nearby = context.getSlotTargets(plan.getSlot(i));
+                    if (!found) area(context, nearby);
+                    found = true;
+                    copy(nearby, targets);
+                }
+                else if (type == Target.SELF) targets.add(player);
                 else continue;
-            }
 
-            // Resolve the effects
-            mechanic.resolve(player, data, skill, targets);
+                // Resolve the effects
+                plan.resolve(context, i, targets);
+            }
+        }
+        finally {
+            CastContext.end(context);
         }
-        skill.prefix = "";
     }
 
     /**
@@ -72,39 +85,53 @@ public class EmbedData extends Valued {
      */
     public void resolveTarget(LivingEntity target) {
         if (!player.isValid()) return;
-        skill.prefix = "Embed ";
-        for (Mechanic mechanic : skill.embedMechanics) {
-            if (mechanic.getTarget() != Target.TARGET && mechanic.getTarget() != Target.TARGET_AREA) return;
+        CastContext context = CastContext.begin(player, data, skill, level, Phase.EMBED, target.getLocation());
+        try {
+            ExecutionPlan plan = skill.getPlan(Phase.EMBED);
+            List<LivingEntity> targets = context.getStepTargets();
+            boolean found = false;
+            for (int i = 0; i < plan.size(); i++) {
+                Target type = plan.getTarget(i);
+                if (type != Target.TARGET && type != Target.TARGET_AREA) return;
 
-            List<LivingEntity> targets;
-            if (mechanic.getTarget() == Target.TARGET_AREA) targets = area(target.getLocation(), skill, data.getSkillLevel(skill.getName()));
-            else {
-                targets = new ArrayList<LivingEntity>();
-                targets.add(target);
-            }
+                targets.clear();
+                if (type == Target.TARGET_AREA) {
+                    List<LivingEntity> nearby = context.getSlotTargets(plan.getSlot(i));
+                    if (!found) area(context, nearby);
+                    found = true;
+                    copy(nearby, targets);
+                }
+                else targets.add(target);
 
-            mechanic.resolve(player, data, skill, targets);
+                plan.resolve(context, i, targets);
+            }
+        }
+        finally {
+            CastContext.end(context);
         }
-        skill.prefix = "";
     }
 
     /**
      * Targets for area effects
      *
-     * @param center the center of the area
-     * @param skill  skill with the effect
-     * @param level  level of the skill
-     * @return       all entities around the player
+     * @param context context of the embedded effects
+     * @param result  list to put all entities around the origin of the context in
      */
-    private List<LivingEntity> area(Location center, DynamicSkill skill, int level) {
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-        double radius = skill.getAttribute("Radius", level);
-        double radiusSq = radius * radius;
-        for (Entity entity : center.getWorld().getEntities()) {
-            if (entity.getLocation().distanceSquared(center) < radiusSq && entity instanceof LivingEntity) {
-                targets.add((LivingEntity)entity);
-            }
+    private void area(CastContext context, List<LivingEntity> result) {
+        double radius = skill.getAttribute(RADIUS.getId(), level);
+        result.clear();
+        skill.getAPI().getSpatialIndex().getInSphere(context.getOrigin(), radius, result);
+    }
+
+    /**
+     * Copies targets into another list without addAll's temporary array
+     *
+     * @param from list to copy from
+     * @param to   list to copy to
+     */
+    private static void copy(List<LivingEntity> from, List<LivingEntity> to) {
+        for (int i = 0; i < from.size(); i++) {
+            to.add(from.get(i));
         }
-        return targets;
     }
 }
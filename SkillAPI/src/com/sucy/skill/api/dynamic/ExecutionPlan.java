@@ -0,0 +1,179 @@
+package com.sucy.skill.api.dynamic;
+
+import com.sucy.skill.api.skill.CastContext;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Compiled form of the mechanics of one phase of a dynamic skill</p>
+ * <p>The mechanic effects, their attribute keys and which mechanics share
+ * the same targets are all worked out when the skill is loaded, so using
+ * the skill only has to go through the steps in order. Mechanics with the
+ * same target type share a slot so their targets are only found once.</p>
+ * <p>Plans never change after being compiled. The skill compiles new
+ * plans whenever its mechanics change.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public final class ExecutionPlan {
+
+    /**
+     * Plan without any steps
+     */
+    public static final ExecutionPlan EMPTY = new ExecutionPlan();
+
+    private final DynamicSkill skill;
+    private final IMechanic[] effects;
+    private final Target[] targets;
+    private final Group[] groups;
+    private final int[] slots;
+    private final Target[] slotTargets;
+    private final String[][] names;
+    private final int[][] ids;
+
+    /**
+     * Constructor for the empty plan
+     */
+    private ExecutionPlan() {
+        skill = null;
+        effects = new IMechanic[0];
+        targets = new Target[0];
+        groups = new Group[0];
+        slots = new int[0];
+        slotTargets = new Target[0];
+        names = new String[0][];
+        ids = new int[0][];
+    }
+
+    /**
+     * Compiles the mechanics of a phase of a skill
+     *
+     * @param skill     skill owning the mechanics
+     * @param mechanics mechanics of the phase in order
+     * @param phase     phase of the mechanics
+     */
+    public ExecutionPlan(DynamicSkill skill, List<Mechanic> mechanics, Phase phase) {
+        int size = mechanics.size();
+        this.skill = skill;
+        effects = new IMechanic[size];
+        targets = new Target[size];
+        groups = new Group[size];
+        slots = new int[size];
+        names = new String[size][];
+        ids = new int[size][];
+
+        // Bind each step to its effect, target slot and attribute keys
+        List<Target> shared = new ArrayList<Target>();
+        for (int i = 0; i < size; i++) {
+            Mechanic mechanic = mechanics.get(i);
+            effects[i] = mechanic.getEffect();
+            targets[i] = mechanic.getTarget();
+            groups[i] = mechanic.getGroup();
+
+            int slot = shared.indexOf(targets[i]);
+            if (slot < 0) {
+                slot = shared.size();
+                shared.add(targets[i]);
+            }
+            slots[i] = slot;
+
+            names[i] = effects[i].getAttributeNames();
+            ids[i] = new int[names[i].length];
+            for (int j = 0; j < names[i].length; j++) {
+                ids[i][j] = skill.getAttributeKey(names[i][j], phase, targets[i]).getId();
+            }
+        }
+        slotTargets = shared.toArray(new Target[shared.size()]);
+    }
+
+    /**
+     * @return number of steps in the plan
+     */
+    public int size() {
+        return effects.length;
+    }
+
+    /**
+     * @return number of distinct target types used by the steps
+     */
+    public int getSlotCount() {
+        return slotTargets.length;
+    }
+
+    /**
+     * Retrieves the target type of a step
+     *
+     * @param step index of the step
+     * @return     target type of the step
+     */
+    public Target getTarget(int step) {
+        return targets[step];
+    }
+
+    /**
+     * Retrieves the target slot of a step
+     *
+     * @param step index of the step
+     * @return     slot shared by all steps with the same target type
+     */
+    public int getSlot(int step) {
+        return slots[step];
+    }
+
+    /**
+     * <p>Executes every step of the plan</p>
+     * <p>The targets of each target type are found once, the first time
+     * a step needs them, and kept in the lists of the context. Each step
+     * gets them copied into the step list of the context to filter, so
+     * nothing is allocated per step.</p>
+     *
+     * @param context context of the skill being used
+     * @return        true if any step was successful, false otherwise
+     */
+    public boolean execute(CastContext context) {
+        if (effects.length == 0) return false;
+
+        int found = 0;
+        boolean successful = false;
+        List<LivingEntity> step = context.getStepTargets();
+        for (int i = 0; i < effects.length; i++) {
+            int slot = slots[i];
+            List<LivingEntity> targets = context.getSlotTargets(slot);
+            if ((found & (1 << slot)) == 0) {
+                targets.clear();
+                slotTargets[slot].getTargets(skill, context.getCaster(), context.getLevel(), targets);
+                found |= 1 << slot;
+            }
+
+            // Copy without addAll to avoid its temporary array
+            step.clear();
+            for (int j = 0; j < targets.size(); j++) {
+                step.add(targets.get(j));
+            }
+            successful = resolve(context, i, step) || successful;
+        }
+        step.clear();
+        return successful;
+    }
+
+    /**
+     * <p>Resolves one step of the plan on the given targets</p>
+     * <p>The targets are filtered by the group of the step, so pass
+     * a list that can be changed.</p>
+     *
+     * @param context context of the skill being used
+     * @param step    index of the step
+     * @param list    targets for the step
+     * @return        true if successful, false otherwise
+     */
+    public boolean resolve(CastContext context, int step, List<LivingEntity> list) {
+        groups[step].filterTargets(context.getCaster(), list);
+        if (list.size() == 0) return false;
+
+        context.bindAttributes(targets[step], names[step], ids[step]);
+        boolean worked = effects[step].resolve(context, targets[step], list);
+        context.unbindAttributes();
+        return worked;
+    }
+}
@@ -39,22 +39,19 @@ public enum Group {
      */
     public List<LivingEntity> filterTargets(Player caster, List<LivingEntity> targets) {
 
-        // Check each target to see if it fits
+        // Allies and enemies are resolved for the whole list at once
+        if (this == ALLY) return Protection.filterAllies(caster, targets, true);
+        if (this == ENEMY) return Protection.filterAllies(caster, targets, false);
+        if (this == ALL) return targets;
+
+        // Keep everyone other than the caster
+        int size = 0;
         for (int i = 0; i < targets.size(); i++) {
             LivingEntity target = targets.get(i);
-
-            // See if its in the group
-            boolean inGroup;
-            if (this == ALLY) inGroup = (caster == target || Protection.isAlly(caster, target));
-            else if (this == ENEMY) inGroup = (caster != target && !Protection.isAlly(caster, target));
-            else if (this == OTHERS) inGroup = (caster != target);
-            else inGroup = this == ALL;
-
-            // Remove the entry if its in the group
-            if (!inGroup) {
-                targets.remove(i);
-                i--;
-            }
+            if (caster != target) targets.set(size++, target);
+        }
+        while (targets.size() > size) {
+            targets.remove(targets.size() - 1);
         }
 
         return targets;
@@ -1,8 +1,7 @@
 package com.sucy.skill.api.dynamic;
 
-import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.List;
 
@@ -12,16 +11,16 @@ import java.util.List;
 public interface IMechanic {
 
     /**
-     * Resolves the mechanic
+     * <p>Resolves the mechanic</p>
+     * <p>The context and the target list are only valid until this
+     * returns, so copy anything from them that is needed afterwards.</p>
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if able to be cast, false otherwise
      */
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets);
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets);
 
     /**
      * Applies default attributes to the skill
@@ -1,10 +1,9 @@
 package com.sucy.skill.api.dynamic;
 
-import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.mechanic.*;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.HashMap;
 import java.util.List;
@@ -106,30 +105,24 @@ public class Mechanic {
     /**
      * Resolves the mechanic
      *
-     * @param player player using the skill
-     * @param data   data of the player using the skill
-     * @param skill  skill being used
-     * @return       true if successfully used, false otherwise
+     * @param context context of the skill being used
+     * @return        true if successfully used, false otherwise
      */
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill) {
-        int level = data.getSkillLevel(skill.getName());
-        List<LivingEntity> targets = target.getTargets(skill, player, level);
-        group.filterTargets(player, targets);
-        return targets.size() > 0 && mechanic.resolve(player, data, skill, target, targets);
+    public boolean resolve(CastContext context) {
+        List<LivingEntity> targets = target.getTargets(skill, context.getCaster(), context.getLevel());
+        return resolve(context, targets);
     }
 
     /**
      * Resolves the mechanic with custom targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param targets targets of the skill
      * @return        true if successfully used, false otherwise
      */
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, List<LivingEntity> targets) {
-        group.filterTargets(player, targets);
-        return targets.size() > 0 && mechanic.resolve(player, data, skill, target, targets);
+    public boolean resolve(CastContext context, List<LivingEntity> targets) {
+        group.filterTargets(context.getCaster(), targets);
+        return targets.size() > 0 && mechanic.resolve(context, target, targets);
     }
 
     /**
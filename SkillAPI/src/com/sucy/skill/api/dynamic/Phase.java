@@ -0,0 +1,42 @@
+package com.sucy.skill.api.dynamic;
+
+/**
+ * Parts of a dynamic skill that mechanics can belong to
+ */
+public enum Phase {
+
+    /**
+     * Mechanics applied when the skill is cast
+     */
+    ACTIVE (""),
+
+    /**
+     * Mechanics applied periodically while the skill is unlocked
+     */
+    PASSIVE ("Passive "),
+
+    /**
+     * Mechanics applied when a projectile of the skill lands
+     */
+    EMBED ("Embed "),
+
+    ;
+
+    private final String prefix;
+
+    /**
+     * Enum constructor
+     *
+     * @param prefix prefix of the attributes of the phase
+     */
+    private Phase(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * @return prefix added to the attributes of mechanics in this phase
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+}
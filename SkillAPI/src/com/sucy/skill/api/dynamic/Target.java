@@ -2,7 +2,6 @@ package com.sucy.skill.api.dynamic;
 
 import com.sucy.skill.api.util.TargetHelper;
 import com.sucy.skill.api.util.TextFormatter;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
@@ -72,27 +71,28 @@ public enum Target {
      * @return       targets for the skill
      */
     public List<LivingEntity> getTargets(DynamicSkill skill, Player caster, int level) {
-        if (this == SELF) return self(skill, caster, level);
-        if (this == TARGET) return target(skill, caster, level);
-        if (this == AREA) return area(skill, caster, level);
-        if (this == TARGET_AREA) return targetArea(skill, caster, level);
-        if (this == LINEAR) return linear(skill, caster, level);
-
-        return new ArrayList<LivingEntity>();
+        return getTargets(skill, caster, level, new ArrayList<LivingEntity>());
     }
 
     /**
-     * Self target
+     * <p>Gets the targets for the caster</p>
+     * <p>The result list is cleared first and then filled with the
+     * targets, so it can be reused between calls.</p>
      *
      * @param skill  skill with the effect
-     * @param caster caster of the skill
+     * @param caster caster of a skill
      * @param level  level of the skill
-     * @return       caster
+     * @param result list to put the targets in
+     * @return       the result list
      */
-    private List<LivingEntity> self(DynamicSkill skill, Player caster, int level) {
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-        targets.add(caster);
-        return targets;
+    public List<LivingEntity> getTargets(DynamicSkill skill, Player caster, int level, List<LivingEntity> result) {
+        result.clear();
+        if (this == SELF) result.add(caster);
+        else if (this == TARGET) target(skill, caster, level, result);
+        else if (this == AREA) area(skill, caster, level, result);
+        else if (this == TARGET_AREA) targetArea(skill, caster, level, result);
+        else if (this == LINEAR) linear(skill, caster, level, result);
+        return result;
     }
 
     /**
@@ -101,33 +101,31 @@ public enum Target {
      * @param skill  skill with the effect
      * @param caster caster of the skill
      * @param level  level of the skill
-     * @return       target looking at
+     * @param result list to add the target to
      */
-    private List<LivingEntity> target(DynamicSkill skill, Player caster, int level) {
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-        LivingEntity target = TargetHelper.getLivingTarget(caster, skill.getAttribute(getAlias(skill, RANGE), level));
-        if (target != null) targets.add(target);
-        return targets;
+    private void target(DynamicSkill skill, Player caster, int level, List<LivingEntity> result) {
+        LivingEntity target = TargetHelper.getLivingTarget(caster, skill.getAttribute(RANGE, Phase.ACTIVE, this, level));
+        if (target != null) result.add(target);
     }
 
     /**
      * Targets for area effects
      *
      * @param skill  skill with the effect
-     * @param caster player casting the skill
+     * @param center entity at the center of the area
      * @param level  skill level
-     * @return       all entities around the player
+     * @param result list to add the center and all entities around it to
      */
-    private List<LivingEntity> area(DynamicSkill skill, Player caster, int level) {
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-        double radius = skill.getAttribute(getAlias(skill, RADIUS), level);
-        targets.add(caster);
-        for (Entity entity : caster.getNearbyEntities(radius, radius, radius)) {
-            if (entity instanceof LivingEntity) {
-                targets.add((LivingEntity)entity);
-            }
+    private void area(DynamicSkill skill, LivingEntity center, int level, List<LivingEntity> result) {
+        double radius = skill.getAttribute(RADIUS, Phase.ACTIVE, this, level);
+        int start = result.size();
+        result.add(center);
+        skill.getAPI().getSpatialIndex().getInBox(center.getLocation(), radius, radius, radius, result);
+
+        // The center is already first in the list
+        for (int i = result.size() - 1; i > start; i--) {
+            if (result.get(i) == center) result.remove(i);
         }
-        return targets;
     }
 
     /**
@@ -136,21 +134,11 @@ public enum Target {
      * @param skill  skill with the effect
      * @param caster player casting the skill
      * @param level  skill level
-     * @return       all entities around the target
+     * @param result list to add all entities around the target to
      */
-    private List<LivingEntity> targetArea(DynamicSkill skill, Player caster, int level) {
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-        LivingEntity target = TargetHelper.getLivingTarget(caster, skill.getAttribute(getAlias(skill, RANGE), level));
-        if (target != null) {
-            double radius = skill.getAttribute(getAlias(skill, RADIUS), level);
-            targets.add(target);
-            for (Entity entity : target.getNearbyEntities(radius, radius, radius)) {
-                if (entity instanceof LivingEntity) {
-                    targets.add((LivingEntity)entity);
-                }
-            }
-        }
-        return targets;
+    private void targetArea(DynamicSkill skill, Player caster, int level, List<LivingEntity> result) {
+        LivingEntity target = TargetHelper.getLivingTarget(caster, skill.getAttribute(RANGE, Phase.ACTIVE, this, level));
+        if (target != null) area(skill, target, level, result);
     }
 
     /**
@@ -159,12 +147,11 @@ public enum Target {
      * @param skill  skill with the effect
      * @param caster player casting the skill
      * @param level  skill level
-     * @return       all entities in a line
+     * @param result list to add all entities in a line to
      */
-    private List<LivingEntity> linear(DynamicSkill skill, Player caster, int level) {
-        List<LivingEntity> targets = TargetHelper.getLivingTargets(caster, skill.getAttribute(getAlias(skill, RANGE), level));
-        targets.add(caster);
-        return targets;
+    private void linear(DynamicSkill skill, Player caster, int level, List<LivingEntity> result) {
+        TargetHelper.getLivingTargets(caster, skill.getAttribute(RANGE, Phase.ACTIVE, this, level), result);
+        result.add(caster);
     }
 
     /**
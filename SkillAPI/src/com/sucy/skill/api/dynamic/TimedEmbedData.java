@@ -1,7 +1,6 @@
 package com.sucy.skill.api.dynamic;
 
-import com.sucy.skill.api.PlayerSkills;
-import org.bukkit.entity.Player;
+import com.sucy.skill.api.skill.CastContext;
 
 /**
  * Skill embedded data that expires after a certain amount of time
@@ -13,13 +12,11 @@ public class TimedEmbedData extends EmbedData {
     /**
      * Constructor
      *
-     * @param player     player casting the skill
-     * @param data       data of the caster
-     * @param skill      skill that was cast
+     * @param context    context of the dynamic skill being used
      * @param expiration expiration time of the effect
      */
-    public TimedEmbedData(Player player, PlayerSkills data, DynamicSkill skill, long expiration) {
-        super(player, data, skill);
+    public TimedEmbedData(CastContext context, long expiration) {
+        super(context);
         this.expiration = expiration;
     }
 
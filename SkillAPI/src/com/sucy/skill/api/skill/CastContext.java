@@ -0,0 +1,347 @@
+package com.sucy.skill.api.skill;
+
+import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.dynamic.DynamicSkill;
+import com.sucy.skill.api.dynamic.Phase;
+import com.sucy.skill.api.dynamic.Target;
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Details of a skill while it is being used</p>
+ * <p>Contexts are kept in a stack for each thread, with the innermost
+ * one being the skill whose effects are currently applying. They are
+ * reused once they end, so don't keep a context after the call you
+ * received it in returns. Copy the details you need instead.</p>
+ * <p>Begin a context whenever you apply skill effects outside of the
+ * normal casting, such as in your own tasks or listeners, so events
+ * know the damage was caused by the skill. ClassSkill.beginUsage()
+ * and ClassSkill.stopUsage() do this for you as well.</p>
+ */
+public final class CastContext {
+
+    private static final ThreadLocal<Frames> FRAMES = new ThreadLocal<Frames>() {
+        @Override
+        protected Frames initialValue() {
+            return new Frames();
+        }
+    };
+
+    private Player caster;
+    private PlayerSkills data;
+    private ClassSkill skill;
+    private int level;
+    private Phase phase;
+    private Location origin;
+    private Target boundTarget;
+    private String[] boundNames;
+    private int[] boundIds;
+
+    @SuppressWarnings("unchecked")
+    private final ArrayList<LivingEntity>[] slotTargets = new ArrayList[Target.values().length];
+    private final ArrayList<LivingEntity> stepTargets = new ArrayList<LivingEntity>();
+
+    /**
+     * Contexts are only created by the pool
+     */
+    private CastContext() { }
+
+    /**
+     * <p>Retrieves the player using the skill</p>
+     * <p>This is null for effects that weren't started by a player
+     * such as those using ClassSkill.beginUsage()</p>
+     *
+     * @return player using the skill or null if unknown
+     */
+    public Player getCaster() {
+        return caster;
+    }
+
+    /**
+     * @return data of the player using the skill or null if unknown
+     */
+    public PlayerSkills getData() {
+        return data;
+    }
+
+    /**
+     * <p>Retrieves the skill being used</p>
+     * <p>This is null for effects that aren't from a skill, such as
+     * particle projectiles launched by other plugins</p>
+     *
+     * @return skill being used or null if none
+     */
+    public ClassSkill getSkill() {
+        return skill;
+    }
+
+    /**
+     * @return level of the skill being used
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return phase of the skill being resolved
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * <p>Retrieves where the effects originate from</p>
+     * <p>This is the caster's location for casts and the location
+     * that was hit for embedded effects</p>
+     *
+     * @return origin of the effects or null if unknown
+     */
+    public Location getOrigin() {
+        return origin;
+    }
+
+    /**
+     * <p>Retrieves the value of a mechanic attribute at the level being used</p>
+     * <p>For dynamic skills, the attribute is resolved for the phase of
+     * this context and the given target.</p>
+     *
+     * @param key    attribute name used by the mechanic
+     * @param target target of the mechanic
+     * @return       attribute value
+     */
+    public double getAttribute(String key, Target target) {
+        int id = getBoundId(key, target);
+        if (id >= 0) return skill.getAttribute(id, level);
+        if (skill instanceof DynamicSkill) return ((DynamicSkill) skill).getAttribute(key, phase, target, level);
+        return skill.getAttribute(key, level);
+    }
+
+    /**
+     * <p>Checks whether or not the skill has a mechanic attribute</p>
+     * <p>For dynamic skills, the attribute is resolved for the phase of
+     * this context and the given target.</p>
+     *
+     * @param key    attribute name used by the mechanic
+     * @param target target of the mechanic
+     * @return       true if the skill has the attribute, false otherwise
+     */
+    public boolean hasAttribute(String key, Target target) {
+        int id = getBoundId(key, target);
+        if (id >= 0) return skill.hasAttribute(id);
+        if (skill instanceof DynamicSkill) return ((DynamicSkill) skill).hasAttribute(key, phase, target);
+        return skill.hasAttribute(key);
+    }
+
+    /**
+     * <p>Binds the resolved attribute keys of the mechanic about to be resolved</p>
+     * <p>Attributes of the mechanic are then read without resolving
+     * their names until unbindAttributes() is called.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param target target of the mechanic
+     * @param names  attribute names used by the mechanic
+     * @param ids    attribute ids of the names for the phase and target
+     */
+    public void bindAttributes(Target target, String[] names, int[] ids) {
+        boundTarget = target;
+        boundNames = names;
+        boundIds = ids;
+    }
+
+    /**
+     * <p>Clears the attribute keys bound by bindAttributes</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     */
+    public void unbindAttributes() {
+        boundTarget = null;
+        boundNames = null;
+        boundIds = null;
+    }
+
+    /**
+     * <p>Gets the bound attribute id of an attribute name</p>
+     * <p>Mechanics use constants for their attribute names, so the
+     * names are compared by reference first.</p>
+     *
+     * @param key    attribute name used by the mechanic
+     * @param target target of the mechanic
+     * @return       attribute id or -1 if not bound
+     */
+    private int getBoundId(String key, Target target) {
+        if (boundNames == null || target != boundTarget) return -1;
+        for (int i = 0; i < boundNames.length; i++) {
+            if (boundNames[i] == key) return boundIds[i];
+        }
+        for (int i = 0; i < boundNames.length; i++) {
+            if (boundNames[i].equals(key)) return boundIds[i];
+        }
+        return -1;
+    }
+
+    /**
+     * <p>Gets the reusable list for the targets of a target slot of an execution plan</p>
+     * <p>The list is emptied when the context ends. Each target type
+     * only gets one slot, so there are never more slots than target types.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param slot target slot
+     * @return     list for the targets of the slot
+     */
+    public List<LivingEntity> getSlotTargets(int slot) {
+        ArrayList<LivingEntity> list = slotTargets[slot];
+        if (list == null) {
+            list = new ArrayList<LivingEntity>();
+            slotTargets[slot] = list;
+        }
+        return list;
+    }
+
+    /**
+     * <p>Gets the reusable list for the targets of the step being resolved</p>
+     * <p>The list is shared by every step, so mechanics that need the
+     * targets after they resolve have to copy them.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @return list for the targets of the step
+     */
+    public List<LivingEntity> getStepTargets() {
+        return stepTargets;
+    }
+
+    /**
+     * Retrieves a value of the skill being used
+     *
+     * @param key value key
+     * @return    skill value
+     */
+    public int getValue(String key) {
+        return skill.getValue(key);
+    }
+
+    /**
+     * <p>Begins using a skill on the current thread</p>
+     * <p>Every context that is begun must be ended with end(CastContext),
+     * preferably in a finally block.</p>
+     *
+     * @param caster player using the skill or null if unknown
+     * @param data   data of the player or null if unknown
+     * @param skill  skill being used or null if none
+     * @param level  level of the skill
+     * @param phase  phase being resolved
+     * @param origin where the effects originate or null if unknown
+     * @return       context of the usage
+     */
+    public static CastContext begin(Player caster, PlayerSkills data, ClassSkill skill, int level, Phase phase, Location origin) {
+        Frames frames = FRAMES.get();
+        if (frames.depth == frames.contexts.length) {
+            frames.contexts = Arrays.copyOf(frames.contexts, frames.depth * 2);
+        }
+        CastContext context = frames.contexts[frames.depth];
+        if (context == null) {
+            context = new CastContext();
+            frames.contexts[frames.depth] = context;
+        }
+        frames.depth++;
+
+        context.caster = caster;
+        context.data = data;
+        context.skill = skill;
+        context.level = level;
+        context.phase = phase;
+        context.origin = origin;
+        context.unbindAttributes();
+        return context;
+    }
+
+    /**
+     * <p>Ends a context begun on the current thread</p>
+     * <p>Any contexts begun after it that weren't ended are ended as well.
+     * This does nothing if the context already ended.</p>
+     *
+     * @param context context to end
+     */
+    public static void end(CastContext context) {
+        Frames frames = FRAMES.get();
+        for (int i = 0; i < frames.depth; i++) {
+            if (frames.contexts[i] == context) {
+                frames.release(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>Ends the outermost context using a skill on the current thread</p>
+     * <p>Any contexts begun after it are ended as well. This does
+     * nothing if the skill isn't being used.</p>
+     *
+     * @param skill skill to stop using
+     */
+    public static void end(ClassSkill skill) {
+        Frames frames = FRAMES.get();
+        for (int i = 0; i < frames.depth; i++) {
+            if (frames.contexts[i].skill == skill) {
+                frames.release(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return innermost context on the current thread or null if none
+     */
+    public static CastContext current() {
+        Frames frames = FRAMES.get();
+        return frames.depth == 0 ? null : frames.contexts[frames.depth - 1];
+    }
+
+    /**
+     * @return skill of the innermost context on the current thread or null if none
+     */
+    public static ClassSkill getCurrentSkill() {
+        CastContext context = current();
+        return context == null ? null : context.skill;
+    }
+
+    /**
+     * Empties the target lists so they don't keep entities loaded
+     */
+    private void clearTargets() {
+        for (ArrayList<LivingEntity> list : slotTargets) {
+            if (list != null) list.clear();
+        }
+        stepTargets.clear();
+    }
+
+    /**
+     * Stack of the contexts of a thread
+     */
+    private static class Frames {
+
+        private CastContext[] contexts = new CastContext[8];
+        private int depth;
+
+        /**
+         * Ends all contexts from an index up
+         *
+         * @param index index of the first context to end
+         */
+        private void release(int index) {
+            for (int i = index; i < depth; i++) {
+                CastContext context = contexts[i];
+                context.caster = null;
+                context.data = null;
+                context.skill = null;
+                context.origin = null;
+                context.unbindAttributes();
+                context.clearTargets();
+            }
+            depth = index;
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.sucy.skill.api.skill;
 
 import com.sucy.skill.SkillAPI;
 import com.sucy.skill.api.Attributed;
-import com.sucy.skill.api.CustomClass;
 import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.dynamic.Phase;
 import com.sucy.skill.config.SkillValues;
 import com.sucy.skill.language.SkillNodes;
 import org.bukkit.Bukkit;
@@ -15,6 +15,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -57,8 +58,12 @@ import java.util.List;
 public abstract class ClassSkill extends Attributed {
 
     private static final DecimalFormat FORMAT = new DecimalFormat("#########0.0#");
-    private final HashMap<String, Long> timers = new HashMap<String, Long>();
+    private static final int LEVEL_MET = 1, POINTS_MET = 2, SKILL_MET = 4;
+
+    private final HashMap<String, HashMap<Integer, RenderedIndicator>> rendered = new HashMap<String, HashMap<Integer, RenderedIndicator>>();
+
     private final String name;
+    private int id = -1;
 
     /**
      * <p>Type of the skill, mostly just for aesthetics as it is just displayed in the skill tree</p>
@@ -196,6 +201,27 @@ public abstract class ClassSkill extends Attributed {
         return name;
     }
 
+    /**
+     * <p>Retrieves the id of the skill</p>
+     * <p>Ids are assigned in the order skills are registered, starting
+     * at 0, and are used to index per-player skill data.</p>
+     *
+     * @return skill id or -1 if the skill isn't registered
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * <p>Sets the id of the skill when it is registered</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param id skill id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * <p>Retrieves the maximum level this skill can be upgraded to</p>
      *
@@ -276,6 +302,7 @@ public abstract class ClassSkill extends Attributed {
     public void setSkillReq(ClassSkill skill, int level) {
         skillReq = skill == null ? null : skill.getName();
         skillReqLevel = level;
+        clearIndicatorCache();
     }
 
     /**
@@ -287,6 +314,7 @@ public abstract class ClassSkill extends Attributed {
      */
     public void setMaxLevel(int level) {
         maxLevel = level;
+        clearIndicatorCache();
     }
 
     /**
@@ -298,6 +326,7 @@ public abstract class ClassSkill extends Attributed {
      */
     public void setIcon(Material mat) {
         indicator = new ItemStack(mat);
+        clearIndicatorCache();
     }
 
     /**
@@ -309,6 +338,7 @@ public abstract class ClassSkill extends Attributed {
      */
     public void setIcon(ItemStack item) {
         indicator = item;
+        clearIndicatorCache();
     }
 
     /**
@@ -320,6 +350,7 @@ public abstract class ClassSkill extends Attributed {
      */
     public void setType(SkillType type) {
         this.type = type;
+        clearIndicatorCache();
     }
 
     /**
@@ -334,9 +365,11 @@ public abstract class ClassSkill extends Attributed {
      * will detect that a skill is being used, but the one that triggered yours instead of
      * your skill itself. When this happens, the damage your skill deals will be counted
      * as being dealt by the other one.</p>
+     * <p>This begins a CastContext without a caster. If you know who is using
+     * the skill, you can begin the CastContext yourself instead.</p>
      */
     public void beginUsage() {
-        PlayerSkills.skillsBeingCast.push(this);
+        CastContext.begin(null, null, this, 0, Phase.ACTIVE, null);
     }
 
     /**
@@ -354,9 +387,7 @@ public abstract class ClassSkill extends Attributed {
      * as being dealt by the other one.</p>
      */
     public void stopUsage() {
-        for (int i = PlayerSkills.skillsBeingCast.indexOf(this); i >= 0 && i < PlayerSkills.skillsBeingCast.size();) {
-            PlayerSkills.skillsBeingCast.pop();
-        }
+        CastContext.end(this);
     }
 
     /**
@@ -389,13 +420,67 @@ public abstract class ClassSkill extends Attributed {
         // No indicator for players without a class
         if (!player.hasClass()) return null;
 
-        CustomClass c = getAPI().getClass(player.getClassName());
-        List<String> layout = api.getMessages(SkillNodes.LAYOUT, false);
-        boolean first = true;
+        // Requirements the player meets
+        int requiredLevel = (int)getAttribute(SkillAttribute.LEVEL_ID, level + 1);
+        int requiredPoints = (int)getAttribute(SkillAttribute.COST_ID, level + 1);
+        int satisfied = 0;
+        if (player.getLevel() >= requiredLevel) satisfied |= LEVEL_MET;
+        if (player.getPoints() >= requiredPoints) satisfied |= POINTS_MET;
+        if (skillReq != null && player.hasSkill(skillReq) && player.getSkillLevel(skillReq) >= skillReqLevel)
+            satisfied |= SKILL_MET;
 
+        // Click string at the bottom
+        String clicks = "";
+        if (api.usingClickCombos() && (this instanceof SkillShot || this instanceof TargetSkill)) {
+            clicks = getAPI().getClass(player.getClassName()).getClickString(this);
+        }
+
+        // Get the rendered text, rendering it if it isn't cached yet
+        HashMap<Integer, RenderedIndicator> renders = rendered.get(clicks);
+        if (renders == null) {
+            renders = new HashMap<Integer, RenderedIndicator>();
+            rendered.put(clicks, renders);
+        }
+        RenderedIndicator render = renders.get(level * 8 + satisfied);
+        if (render == null) {
+            render = render(level, satisfied, clicks);
+            renders.put(level * 8 + satisfied, render);
+        }
+
+        // Assemble the item
         ItemStack item = indicator.clone();
         item.setAmount(Math.max(1, level));
         ItemMeta meta = item.hasItemMeta() ? item.getItemMeta() : Bukkit.getItemFactory().getItemMeta(item.getType());
+        if (render.name != null) meta.setDisplayName(render.name);
+        meta.setLore(new ArrayList<String>(render.lore));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    /**
+     * <p>Clears the cached indicator text of the skill</p>
+     * <p>This is done automatically when the skill is updated from
+     * the configuration or its attributes change. If you change the
+     * description of a skill some other way, call this so indicators
+     * show it.</p>
+     */
+    public void clearIndicatorCache() {
+        rendered.clear();
+    }
+
+    /**
+     * Renders the name and lore of the indicator from the skill layout
+     *
+     * @param level     current skill level
+     * @param satisfied flags of the requirements the player meets
+     * @param clicks    click combination of the skill or an empty string if none
+     * @return          rendered indicator text
+     */
+    private RenderedIndicator render(int level, int satisfied, String clicks) {
+
+        List<String> layout = api.getMessages(SkillNodes.LAYOUT, false);
+        boolean first = true;
+        String name = null;
         ArrayList<String> lore = new ArrayList<String>();
 
         // Cycle through each line, parse it, and add it to the display
@@ -423,17 +508,16 @@ public abstract class ClassSkill extends Attributed {
             // Requirement Filter
             if (line.contains("{requirements}")) {
 
-                int requiredLevel = (int)getAttribute(SkillAttribute.LEVEL, level + 1);
+                int requiredLevel = (int)getAttribute(SkillAttribute.LEVEL_ID, level + 1);
                 line = line.replace("{requirements}",
-                        getRequirementString(SkillAttribute.LEVEL, requiredLevel, player.getLevel() >= requiredLevel));
+                        getRequirementString(SkillAttribute.LEVEL, requiredLevel, (satisfied & LEVEL_MET) != 0));
 
-                int requiredPoints = (int)getAttribute(SkillAttribute.COST, level + 1);
-                results.add(getRequirementString(SkillAttribute.COST, requiredPoints, player.getPoints() >= requiredPoints));
+                int requiredPoints = (int)getAttribute(SkillAttribute.COST_ID, level + 1);
+                results.add(getRequirementString(SkillAttribute.COST, requiredPoints, (satisfied & POINTS_MET) != 0));
 
                 String skillReq = getSkillReq();
                 if (skillReq != null) {
-                    results.add(getRequirementString(skillReq, skillReqLevel,
-                            player.hasSkill(skillReq) && player.getSkillLevel(skillReq) >= skillReqLevel));
+                    results.add(getRequirementString(skillReq, skillReqLevel, (satisfied & SKILL_MET) != 0));
                 }
             }
 
@@ -520,7 +604,7 @@ public abstract class ClassSkill extends Attributed {
                 // First line is assigned to the item's name
                 if (first) {
                     first = false;
-                    meta.setDisplayName(result);
+                    name = result;
                 }
 
                 // Anything else appends to the lore
@@ -529,14 +613,12 @@ public abstract class ClassSkill extends Attributed {
         }
 
         // Click string at the bottom
-        if (api.usingClickCombos() && (this instanceof SkillShot || this instanceof TargetSkill)) {
+        if (clicks.length() > 0) {
             lore.add("");
-            lore.add(c.getClickString(this));
+            lore.add(clicks);
         }
 
-        meta.setLore(lore);
-        item.setItemMeta(meta);
-        return item;
+        return new RenderedIndicator(name, lore);
     }
 
     /**
@@ -584,8 +666,8 @@ public abstract class ClassSkill extends Attributed {
 
         // If mana is enabled, check to see if the player has enough
         if (api.isManaEnabled()) {
-            int level = player.getSkillLevel(name);
-            double manaCost = getAttribute(SkillAttribute.MANA, level);
+            int level = player.getSkillLevel(this);
+            double manaCost = getAttribute(SkillAttribute.MANA_ID, level);
 
             if (player.getMana() < manaCost) return SkillStatus.MISSING_MANA;
         }
@@ -602,7 +684,7 @@ public abstract class ClassSkill extends Attributed {
      * @param player player to start the cooldown for
      */
     public void startCooldown(PlayerSkills player) {
-        timers.put(player.getName(), System.currentTimeMillis());
+        player.setCooldownStart(id, System.currentTimeMillis());
     }
 
     /**
@@ -612,7 +694,7 @@ public abstract class ClassSkill extends Attributed {
      * @param player player to refresh the cooldown for
      */
     public void refreshCooldown(PlayerSkills player) {
-        timers.put(player.getName(), 0L);
+        player.setCooldownStart(id, 0L);
     }
 
     /**
@@ -622,7 +704,7 @@ public abstract class ClassSkill extends Attributed {
      * @param seconds seconds to reduce the cooldown by
      */
     public void subtractCooldown(PlayerSkills player, int seconds) {
-        timers.put(player.getName(), timers.get(player.getName()) - seconds * 1000);
+        player.setCooldownStart(id, player.getCooldownStart(id) - seconds * 1000);
     }
 
     /**
@@ -632,7 +714,7 @@ public abstract class ClassSkill extends Attributed {
      * @param seconds seconds to increase the cooldown by
      */
     public void addCooldown(PlayerSkills player, int seconds) {
-        timers.put(player.getName(), timers.get(player.getName()) + seconds * 1000);
+        player.setCooldownStart(id, player.getCooldownStart(id) + seconds * 1000);
     }
 
     /**
@@ -642,19 +724,33 @@ public abstract class ClassSkill extends Attributed {
      * @return       time left on cooldown (0 if off cooldown)
      */
     public int getCooldown(PlayerSkills player) {
-
-        // Make sure they have a timer
-        if (!timers.containsKey(player.getName())) {
-            timers.put(player.getName(), 0L);
-        }
-
-        int level = player.getSkillLevel(name);
-        long passed = System.currentTimeMillis() - timers.get(player.getName());
-        long cd = (long)(1000 * getAttribute(SkillAttribute.COOLDOWN, level));
+        int level = player.getSkillLevel(this);
+        long passed = System.currentTimeMillis() - player.getCooldownStart(id);
+        long cd = (long)(1000 * getAttribute(SkillAttribute.COOLDOWN_ID, level));
         int left = (int)((cd - passed) / 1000 + 1);
         return left > 0 ? left : 0;
     }
 
+    /**
+     * <p>Gets the highest level to precompute attribute values for</p>
+     * <p>Skills precompute every level up to one past their max level
+     * so the requirements of the next level are covered too.</p>
+     *
+     * @return highest level to precompute
+     */
+    @Override
+    protected int getPrecomputedLevel() {
+        return maxLevel + 1;
+    }
+
+    /**
+     * Drops the cached indicator text since it shows the attribute values
+     */
+    @Override
+    protected void onAttributesChanged() {
+        clearIndicatorCache();
+    }
+
     /**
      * Validates that the default attributes are set and sets them if they aren't there
      */
@@ -676,6 +772,7 @@ public abstract class ClassSkill extends Attributed {
      * @param config configuration data to update from
      */
     public void update(ConfigurationSection config) {
+        clearIndicatorCache();
 
         // Attributes
         for (String attribute : getAttributeNames()) {
@@ -726,4 +823,24 @@ public abstract class ClassSkill extends Attributed {
         if (pieces.length > 1) item.setDurability(Short.parseShort(pieces[1]));
         indicator = item;
     }
+
+    /**
+     * Name and lore of an indicator rendered from the skill layout
+     */
+    private static class RenderedIndicator {
+
+        private final String name;
+        private final List<String> lore;
+
+        /**
+         * Constructor
+         *
+         * @param name display name or null if the layout has no lines
+         * @param lore lore lines
+         */
+        private RenderedIndicator(String name, List<String> lore) {
+            this.name = name;
+            this.lore = Collections.unmodifiableList(lore);
+        }
+    }
 }
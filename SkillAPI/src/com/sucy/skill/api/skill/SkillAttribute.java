@@ -1,5 +1,7 @@
 package com.sucy.skill.api.skill;
 
+import com.sucy.skill.api.Attributed;
+
 /**
  * <p>Names of default attributes for skills</p>
  */
@@ -33,4 +35,31 @@ public class SkillAttribute {
      * Range of a target skill
      */
     RANGE = "Range";
+
+    public static final int
+
+    /**
+     * Id of the cooldown attribute
+     */
+    COOLDOWN_ID = Attributed.getAttributeId(COOLDOWN),
+
+    /**
+     * Id of the mana cost attribute
+     */
+    MANA_ID = Attributed.getAttributeId(MANA),
+
+    /**
+     * Id of the level requirement attribute
+     */
+    LEVEL_ID = Attributed.getAttributeId(LEVEL),
+
+    /**
+     * Id of the skill point cost attribute
+     */
+    COST_ID = Attributed.getAttributeId(COST),
+
+    /**
+     * Id of the range attribute
+     */
+    RANGE_ID = Attributed.getAttributeId(RANGE);
 }
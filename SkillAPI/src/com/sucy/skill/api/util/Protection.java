@@ -1,5 +1,6 @@
 package com.sucy.skill.api.util;
 
+import com.sucy.skill.task.TickCounter;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -8,13 +9,36 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 /**
- * Utility class for determining what a player can attack
+ * <p>Utility class for determining what a player can attack</p>
+ * <p>Checking an attack calls a damage event through every plugin, so
+ * the result for each attacker and target is remembered until the end
+ * of the tick. Use clearCache() if alliances change partway through a
+ * tick and the change needs to apply right away.</p>
  */
 public class Protection {
 
+    private static final HashMap<Long, Boolean> cache = new HashMap<Long, Boolean>();
+    private static TickCounter ticks;
+    private static int cacheTick = -1;
+
+    /**
+     * <p>Sets the tick counter the cache is cleared by</p>
+     * <p>Without one, nothing is cached. This is set up by the API and
+     * cleared with null when it is disabled.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param counter tick counter of the API or null to stop caching
+     */
+    public static void initialize(TickCounter counter) {
+        ticks = counter;
+        cache.clear();
+        cacheTick = -1;
+    }
+
     /**
      * Checks if a player can be PvPed
      *
@@ -23,16 +47,8 @@ public class Protection {
      * @return         true if the attack is allowed
      */
     public static boolean canAttack(Player attacker, LivingEntity target) {
-        if (target instanceof Tameable) {
-            Tameable entity = (Tameable)target;
-            if (entity.isTamed() && entity.getOwner().getName().equals(attacker.getName())) {
-                return false;
-            }
-        }
-        if (attacker == target) return false;
-        EntityDamageByEntityEvent event = new EntityDamageByEntityEvent(attacker, target, EntityDamageEvent.DamageCause.CUSTOM, 1);
-        Bukkit.getPluginManager().callEvent(event);
-        return !event.isCancelled() && event.getDamage() > 0;
+        boolean cached = updateCache();
+        return canAttack(attacker, attacker.getName(), (long)attacker.getEntityId() << 32, target, cached);
     }
 
     /**
@@ -46,6 +62,41 @@ public class Protection {
         return !canAttack(attacker, target);
     }
 
+    /**
+     * <p>Removes the targets that aren't on the given side from the list</p>
+     * <p>The list is filtered in place. The attacker and the cache are
+     * only looked at once for the whole list, so this is faster than
+     * checking each target separately.</p>
+     *
+     * @param attacker player attacking
+     * @param targets  targets to filter
+     * @param allies   true to keep allies, false to keep enemies
+     * @return         the filtered list
+     */
+    public static List<LivingEntity> filterAllies(Player attacker, List<LivingEntity> targets, boolean allies) {
+        boolean cached = updateCache();
+        String name = attacker.getName();
+        long key = (long)attacker.getEntityId() << 32;
+
+        // Keep the matching targets at the front of the list
+        int size = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            LivingEntity target = targets.get(i);
+            if (canAttack(attacker, name, key, target, cached) != allies) targets.set(size++, target);
+        }
+        while (targets.size() > size) {
+            targets.remove(targets.size() - 1);
+        }
+        return targets;
+    }
+
+    /**
+     * Forgets the results of all checks made this tick
+     */
+    public static void clearCache() {
+        cache.clear();
+    }
+
     /**
      * Retrieves all living entities the player can attack from the list
      *
@@ -54,13 +105,7 @@ public class Protection {
      * @return         list of targets the player can attack
      */
     public static List<LivingEntity> canAttack(Player attacker, List<LivingEntity> targets) {
-        List<LivingEntity> list = new ArrayList<LivingEntity>();
-        for (LivingEntity entity : targets) {
-            if (canAttack(attacker, entity)) {
-                list.add(entity);
-            }
-        }
-        return list;
+        return filterAllies(attacker, new ArrayList<LivingEntity>(targets), false);
     }
 
     /**
@@ -71,12 +116,54 @@ public class Protection {
      * @return         list of targets the player cannot attack
      */
     public static List<LivingEntity> cannotAttack(Player attacker, List<LivingEntity> targets) {
-        List<LivingEntity> list = new ArrayList<LivingEntity>();
-        for (LivingEntity entity : targets) {
-            if (!canAttack(attacker, entity)) {
-                list.add(entity);
+        return filterAllies(attacker, new ArrayList<LivingEntity>(targets), true);
+    }
+
+    /**
+     * Clears the cache if it is from a previous tick
+     *
+     * @return true if results can be cached, false otherwise
+     */
+    private static boolean updateCache() {
+        if (ticks == null) return false;
+        int tick = ticks.getTick();
+        if (tick != cacheTick) {
+            cache.clear();
+            cacheTick = tick;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a player can attack a target
+     *
+     * @param attacker player attacking
+     * @param name     name of the attacker
+     * @param key      entity id of the attacker in the upper half of the cache key
+     * @param target   entity being attacked
+     * @param cached   whether or not to use the cache
+     * @return         true if the attack is allowed
+     */
+    private static boolean canAttack(Player attacker, String name, long key, LivingEntity target, boolean cached) {
+        if (target instanceof Tameable) {
+            Tameable entity = (Tameable)target;
+            if (entity.isTamed() && entity.getOwner().getName().equals(name)) {
+                return false;
             }
         }
-        return list;
+        if (attacker == target) return false;
+
+        // Reuse the result from earlier in the tick
+        Long pair = key | (target.getEntityId() & 0xffffffffL);
+        if (cached) {
+            Boolean result = cache.get(pair);
+            if (result != null) return result;
+        }
+
+        EntityDamageByEntityEvent event = new EntityDamageByEntityEvent(attacker, target, EntityDamageEvent.DamageCause.CUSTOM, 1);
+        Bukkit.getPluginManager().callEvent(event);
+        boolean result = !event.isCancelled() && event.getDamage() > 0;
+        if (cached) cache.put(pair, result);
+        return result;
     }
 }
@@ -0,0 +1,360 @@
+package com.sucy.skill.api.util;
+
+import com.sucy.skill.SkillAPI;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>Grid of the living entities in each world for area lookups</p>
+ * <p>Entities are put into buckets by the chunk column they are in, so
+ * a query only looks at the entities in the chunks it overlaps instead of
+ * every entity in the world. The grid of a world is rebuilt the first
+ * time it is queried each tick.</p>
+ * <p>Entities are bucketed by where they were when the grid was built,
+ * but are checked against where they are when queried. Queries look a
+ * couple blocks past their bounds so entities that moved across a
+ * bucket edge since the grid was built are still found.</p>
+ * <p>This should only be used on the main server thread.</p>
+ */
+public class SpatialIndex {
+
+    private static final int SHIFT = 4;
+    private static final double MARGIN = 2;
+
+    private final HashMap<String, Grid> grids = new HashMap<String, Grid>();
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private final SkillAPI api;
+
+    /**
+     * Constructor
+     *
+     * @param api API reference
+     */
+    public SpatialIndex(SkillAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * <p>Gets the living entities within a distance of a location</p>
+     *
+     * @param center center of the sphere
+     * @param radius radius of the sphere
+     * @return       entities inside the sphere
+     */
+    public List<LivingEntity> getInSphere(Location center, double radius) {
+        List<LivingEntity> list = new ArrayList<LivingEntity>();
+        getInSphere(center, radius, list);
+        return list;
+    }
+
+    /**
+     * <p>Adds the living entities within a distance of a location to a list</p>
+     * <p>The list is not cleared first, so entries already in it are kept.</p>
+     *
+     * @param center center of the sphere
+     * @param radius radius of the sphere
+     * @param result list to add the entities to
+     */
+    public void getInSphere(Location center, double radius, List<LivingEntity> result) {
+        int start = result.size();
+        gather(center.getWorld(), center.getX() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getZ() + radius, result);
+        double radiusSq = radius * radius;
+        for (int i = result.size() - 1; i >= start; i--) {
+            if (!locate(result.get(i), center.getWorld()) || scratch.distanceSquared(center) >= radiusSq) remove(result, i);
+        }
+    }
+
+    /**
+     * <p>Gets the living entities in a box around a location</p>
+     * <p>The sizes are how far the box extends from the center in each
+     * direction, the same as Entity.getNearbyEntities(double, double, double).</p>
+     *
+     * @param center center of the box
+     * @param x      distance along the x-axis
+     * @param y      distance along the y-axis
+     * @param z      distance along the z-axis
+     * @return       entities inside the box
+     */
+    public List<LivingEntity> getInBox(Location center, double x, double y, double z) {
+        List<LivingEntity> list = new ArrayList<LivingEntity>();
+        getInBox(center, x, y, z, list);
+        return list;
+    }
+
+    /**
+     * <p>Adds the living entities in a box around a location to a list</p>
+     * <p>The list is not cleared first, so entries already in it are kept.</p>
+     *
+     * @param center center of the box
+     * @param x      distance along the x-axis
+     * @param y      distance along the y-axis
+     * @param z      distance along the z-axis
+     * @param result list to add the entities to
+     */
+    public void getInBox(Location center, double x, double y, double z, List<LivingEntity> result) {
+        int start = result.size();
+        gather(center.getWorld(), center.getX() - x, center.getZ() - z,
+                center.getX() + x, center.getZ() + z, result);
+        for (int i = result.size() - 1; i >= start; i--) {
+            if (!locate(result.get(i), center.getWorld())
+                    || Math.abs(scratch.getX() - center.getX()) > x
+                    || Math.abs(scratch.getY() - center.getY()) > y
+                    || Math.abs(scratch.getZ() - center.getZ()) > z) remove(result, i);
+        }
+    }
+
+    /**
+     * <p>Gets the living entities inside a cone</p>
+     *
+     * @param apex      tip of the cone
+     * @param direction direction the cone opens towards
+     * @param range     length of the cone
+     * @param angle     total angle of the cone in degrees
+     * @return          entities inside the cone
+     */
+    public List<LivingEntity> getInCone(Location apex, Vector direction, double range, double angle) {
+        List<LivingEntity> list = getInSphere(apex, range);
+        double length = direction.length();
+        if (length == 0) {
+            list.clear();
+            return list;
+        }
+        double cos = Math.cos(Math.toRadians(angle / 2));
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (!locate(list.get(i), apex.getWorld())) {
+                remove(list, i);
+                continue;
+            }
+            double x = scratch.getX() - apex.getX();
+            double y = scratch.getY() - apex.getY();
+            double z = scratch.getZ() - apex.getZ();
+            double dot = (x * direction.getX() + y * direction.getY() + z * direction.getZ()) / length;
+            if (dot < 0 || dot * dot < cos * cos * (x * x + y * y + z * z)) remove(list, i);
+        }
+        return list;
+    }
+
+    /**
+     * <p>Gets the living entities along a ray</p>
+     * <p>Entities are checked from the middle of their body, so the
+     * tolerance is how far that can be from the ray.</p>
+     *
+     * @param origin    start of the ray
+     * @param direction direction of the ray
+     * @param range     length of the ray
+     * @param tolerance distance an entity can be from the ray
+     * @return          entities along the ray
+     */
+    public List<LivingEntity> getOnRay(Location origin, Vector direction, double range, double tolerance) {
+        double length = direction.length();
+        if (length == 0) return new ArrayList<LivingEntity>();
+
+        double dx = direction.getX() / length;
+        double dy = direction.getY() / length;
+        double dz = direction.getZ() / length;
+        double endX = origin.getX() + dx * range;
+        double endZ = origin.getZ() + dz * range;
+        List<LivingEntity> list = gather(origin.getWorld(),
+                Math.min(origin.getX(), endX) - tolerance, Math.min(origin.getZ(), endZ) - tolerance,
+                Math.max(origin.getX(), endX) + tolerance, Math.max(origin.getZ(), endZ) + tolerance);
+
+        double toleranceSq = tolerance * tolerance;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            LivingEntity entity = list.get(i);
+            if (!locate(entity, origin.getWorld())) {
+                remove(list, i);
+                continue;
+            }
+            double x = scratch.getX() - origin.getX();
+            double y = scratch.getY() + entity.getEyeHeight() / 2 - origin.getY();
+            double z = scratch.getZ() - origin.getZ();
+            double t = Math.max(0, Math.min(range, x * dx + y * dy + z * dz));
+            x -= dx * t;
+            y -= dy * t;
+            z -= dz * t;
+            if (x * x + y * y + z * z > toleranceSq) remove(list, i);
+        }
+        return list;
+    }
+
+    /**
+     * <p>Gets the living entities that could be in an area</p>
+     * <p>This only checks which buckets the entities are in, so the
+     * results can be outside of the area and need to be checked. The
+     * results are added to the given list without clearing it.</p>
+     *
+     * @param world  world to look in
+     * @param minX   lowest x-coordinate of the area
+     * @param minZ   lowest z-coordinate of the area
+     * @param maxX   highest x-coordinate of the area
+     * @param maxZ   highest z-coordinate of the area
+     * @param result list to add the entities to
+     */
+    public void getCandidates(World world, double minX, double minZ, double maxX, double maxZ, List<LivingEntity> result) {
+        gather(world, minX, minZ, maxX, maxZ, result);
+    }
+
+    /**
+     * Drops the grids of all worlds
+     */
+    public void clear() {
+        grids.clear();
+    }
+
+    /**
+     * Gets the living entities in the buckets overlapping an area
+     *
+     * @param world world to look in
+     * @param minX  lowest x-coordinate of the area
+     * @param minZ  lowest z-coordinate of the area
+     * @param maxX  highest x-coordinate of the area
+     * @param maxZ  highest z-coordinate of the area
+     * @return      valid entities in the overlapping buckets
+     */
+    private List<LivingEntity> gather(World world, double minX, double minZ, double maxX, double maxZ) {
+        List<LivingEntity> list = new ArrayList<LivingEntity>();
+        gather(world, minX, minZ, maxX, maxZ, list);
+        return list;
+    }
+
+    /**
+     * Adds the living entities in the buckets overlapping an area to a list
+     *
+     * @param world world to look in
+     * @param minX  lowest x-coordinate of the area
+     * @param minZ  lowest z-coordinate of the area
+     * @param maxX  highest x-coordinate of the area
+     * @param maxZ  highest z-coordinate of the area
+     * @param list  list to add the valid entities to
+     */
+    private void gather(World world, double minX, double minZ, double maxX, double maxZ, List<LivingEntity> list) {
+        Grid grid = getGrid(world);
+        int minCX = (int)Math.floor(minX - MARGIN) >> SHIFT;
+        int minCZ = (int)Math.floor(minZ - MARGIN) >> SHIFT;
+        int maxCX = (int)Math.floor(maxX + MARGIN) >> SHIFT;
+        int maxCZ = (int)Math.floor(maxZ + MARGIN) >> SHIFT;
+
+        // Large areas are faster to check against the full list
+        if ((long)(maxCX - minCX + 1) * (maxCZ - minCZ + 1) > grid.cells.size()) {
+            for (ArrayList<LivingEntity> cell : grid.cells.values()) {
+                addValid(cell, list);
+            }
+            return;
+        }
+
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cz = minCZ; cz <= maxCZ; cz++) {
+                ArrayList<LivingEntity> cell = grid.cells.get(key(cx, cz));
+                if (cell != null) addValid(cell, list);
+            }
+        }
+    }
+
+    /**
+     * Gets the grid of a world, rebuilding it if it is from a previous tick
+     *
+     * @param world world to get the grid for
+     * @return      up-to-date grid of the world
+     */
+    private Grid getGrid(World world) {
+        Grid grid = grids.get(world.getName());
+        if (grid == null) {
+            grid = new Grid();
+            grids.put(world.getName(), grid);
+        }
+
+        int tick = api.getTick();
+        if (grid.tick != tick || !grid.built) {
+            grid.tick = tick;
+            grid.built = true;
+
+            // Reuse the buckets that were used last time
+            Iterator<ArrayList<LivingEntity>> iterator = grid.cells.values().iterator();
+            while (iterator.hasNext()) {
+                ArrayList<LivingEntity> cell = iterator.next();
+                if (cell.isEmpty()) iterator.remove();
+                else cell.clear();
+            }
+
+            for (LivingEntity entity : world.getLivingEntities()) {
+                entity.getLocation(scratch);
+                Long key = key(scratch.getBlockX() >> SHIFT, scratch.getBlockZ() >> SHIFT);
+                ArrayList<LivingEntity> cell = grid.cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<LivingEntity>();
+                    grid.cells.put(key, cell);
+                }
+                cell.add(entity);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Adds the valid entities of a bucket to a list
+     *
+     * @param cell bucket to add from
+     * @param list list to add to
+     */
+    private static void addValid(ArrayList<LivingEntity> cell, List<LivingEntity> list) {
+        for (LivingEntity entity : cell) {
+            if (entity.isValid()) list.add(entity);
+        }
+    }
+
+    /**
+     * <p>Gets where an entity is now if it is still valid and in the world</p>
+     * <p>Entities can die or change worlds after the grid was built, which
+     * would otherwise break distance checks. The location is put in the
+     * scratch location.</p>
+     *
+     * @param entity entity to locate
+     * @param world  world the entity has to be in
+     * @return       true if located, false if the entity should be skipped
+     */
+    private boolean locate(LivingEntity entity, World world) {
+        if (!entity.isValid()) return false;
+        entity.getLocation(scratch);
+        return scratch.getWorld() == world;
+    }
+
+    /**
+     * Removes an entry from a list by moving the last entry into its place
+     *
+     * @param list  list to remove from
+     * @param index index of the entry to remove
+     */
+    private static void remove(List<LivingEntity> list, int index) {
+        int last = list.size() - 1;
+        if (index != last) list.set(index, list.get(last));
+        list.remove(last);
+    }
+
+    /**
+     * Gets the key of a bucket
+     *
+     * @param cx bucket x-coordinate
+     * @param cz bucket z-coordinate
+     * @return   key of the bucket
+     */
+    private static long key(int cx, int cz) {
+        return ((long)cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /**
+     * Buckets of the living entities of one world
+     */
+    private static class Grid {
+        private final HashMap<Long, ArrayList<LivingEntity>> cells = new HashMap<Long, ArrayList<LivingEntity>>();
+        private int tick;
+        private boolean built;
+    }
+}
@@ -1,5 +1,7 @@
 package com.sucy.skill.api.util;
 
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -9,10 +11,33 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Helper class for finding the target of a player
+ * <p>Helper class for finding the target of a player</p>
+ * <p>Targeting reuses shared buffers, so only use it on the main server thread.</p>
  */
 public class TargetHelper {
 
+    private static final double HALF_WIDTH = 0.5;
+    private static final double HEIGHT_SCALE = 1.15;
+    private static final double TOLERANCE = 0.5;
+
+    private static final ArrayList<LivingEntity> CANDIDATES = new ArrayList<LivingEntity>();
+    private static final Location SCRATCH = new Location(null, 0, 0, 0);
+    private static final Ray RAY = new Ray();
+
+    private static SpatialIndex index;
+
+    /**
+     * <p>Sets the spatial index used to find the entities near the line of sight</p>
+     * <p>Without one, every entity in the world is checked. This is set up
+     * by the API and cleared with null when it is disabled.</p>
+     * <p>This is for the API use only. You should not use this method.</p>
+     *
+     * @param spatialIndex spatial index of the API or null for none
+     */
+    public static void initialize(SpatialIndex spatialIndex) {
+        index = spatialIndex;
+    }
+
     /**
      * <p>Gets all entities the player is looking at within the range</p>
      * <p>Has a little bit of tolerance to make targeting easier</p>
@@ -22,29 +47,30 @@ public class TargetHelper {
      * @return       all entities in the player's vision line
      */
     public static List<LivingEntity> getLivingTargets(Player player, double range) {
-        List<Entity> list = player.getNearbyEntities(range, range, range);
-        List<LivingEntity> targets = new ArrayList<LivingEntity>();
-
-        Vector facing = player.getLocation().getDirection();
-        double fLengthSq = facing.lengthSquared();
-
-        for (Entity entity : list) {
-            if (!isInFront(player, entity) || !(entity instanceof LivingEntity)) continue;
-
-            Vector relative = entity.getLocation().subtract(player.getLocation()).toVector();
-            double dot = relative.dot(facing);
-            double rLengthSq = relative.lengthSquared();
-            double cosSquared = (dot * dot) / (rLengthSq + fLengthSq);
-            double sinSquared = 1 - cosSquared;
+        return getLivingTargets(player, range, new ArrayList<LivingEntity>());
+    }
 
-            relative = player.getLocation().subtract(entity.getLocation()).toVector();
-            double dSquared = relative.lengthSquared() * sinSquared;
+    /**
+     * <p>Gets all entities the player is looking at within the range</p>
+     * <p>Has a little bit of tolerance to make targeting easier</p>
+     * <p>The result list is cleared first and then filled with the
+     * entities, so it can be reused between calls.</p>
+     *
+     * @param player player to check
+     * @param range  maximum range to check
+     * @param result list to put the entities in
+     * @return       the result list
+     */
+    public static List<LivingEntity> getLivingTargets(Player player, double range, List<LivingEntity> result) {
+        result.clear();
+        if (!RAY.aim(player, range)) return result;
 
-            // If close enough to vision line, return the entity
-            if (dSquared < 4) targets.add((LivingEntity)entity);
+        for (int i = 0; i < CANDIDATES.size(); i++) {
+            LivingEntity entity = CANDIDATES.get(i);
+            if (entity != player && RAY.hit(entity) >= 0) result.add(entity);
         }
-
-        return targets;
+        CANDIDATES.clear();
+        return result;
     }
 
     /**
@@ -56,17 +82,20 @@ public class TargetHelper {
      * @return       entity player is looing at or null if not found
      */
     public static LivingEntity getLivingTarget(Player player, double range) {
-        List<LivingEntity> targets = getLivingTargets(player, range);
-        if (targets.size() == 0) return null;
-        LivingEntity target = targets.get(0);
-        double minDistance = target.getLocation().distanceSquared(player.getLocation());
-        for (LivingEntity entity : targets) {
-            double distance = entity.getLocation().distanceSquared(player.getLocation());
-            if (distance < minDistance) {
-                minDistance = distance;
+        if (!RAY.aim(player, range)) return null;
+
+        LivingEntity target = null;
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < CANDIDATES.size(); i++) {
+            LivingEntity entity = CANDIDATES.get(i);
+            if (entity == player) continue;
+            double distance = RAY.hit(entity);
+            if (distance >= 0 && distance < nearest) {
+                nearest = distance;
                 target = entity;
             }
         }
+        CANDIDATES.clear();
         return target;
     }
 
@@ -86,4 +115,111 @@ public class TargetHelper {
         // If the dot product is positive, the target is in front
         return facing.dot(relative) >= 0;
     }
+
+    /**
+     * <p>Line of sight of a player tested against entity bounding boxes</p>
+     * <p>Bounding boxes are estimated from the eye height of the entities
+     * and padded by a small tolerance to make targeting easier.</p>
+     */
+    private static class Ray {
+
+        private World world;
+        private double ox, oy, oz;
+        private double dx, dy, dz;
+        private double range;
+
+        /**
+         * <p>Sets up the ray from a player's eyes along their facing</p>
+         * <p>The entities that could be hit are put into the candidate list.</p>
+         *
+         * @param player player to aim from
+         * @param range  length of the ray
+         * @return       true if the ray has a length, false otherwise
+         */
+        private boolean aim(Player player, double range) {
+            CANDIDATES.clear();
+            if (range <= 0) return false;
+
+            player.getLocation(SCRATCH);
+            double yaw = Math.toRadians(SCRATCH.getYaw());
+            double pitch = Math.toRadians(SCRATCH.getPitch());
+            double xz = Math.cos(pitch);
+            this.world = SCRATCH.getWorld();
+            this.ox = SCRATCH.getX();
+            this.oy = SCRATCH.getY() + player.getEyeHeight();
+            this.oz = SCRATCH.getZ();
+            this.dx = -xz * Math.sin(yaw);
+            this.dy = -Math.sin(pitch);
+            this.dz = xz * Math.cos(yaw);
+            this.range = range;
+
+            double pad = HALF_WIDTH + TOLERANCE;
+            double endX = ox + dx * range;
+            double endZ = oz + dz * range;
+            if (index == null) CANDIDATES.addAll(SCRATCH.getWorld().getLivingEntities());
+            else index.getCandidates(SCRATCH.getWorld(),
+                    Math.min(ox, endX) - pad, Math.min(oz, endZ) - pad,
+                    Math.max(ox, endX) + pad, Math.max(oz, endZ) + pad, CANDIDATES);
+            return true;
+        }
+
+        /**
+         * Checks where the ray enters the bounding box of an entity
+         *
+         * @param entity entity to check
+         * @return       distance along the ray to the entity or -1 if missed
+         */
+        private double hit(LivingEntity entity) {
+            if (!entity.isValid()) return -1;
+            entity.getLocation(SCRATCH);
+            if (SCRATCH.getWorld() != world) return -1;
+            double pad = HALF_WIDTH + TOLERANCE;
+            double near = 0;
+            double far = range;
+
+            // X slab
+            double min = SCRATCH.getX() - pad;
+            double max = SCRATCH.getX() + pad;
+            if (dx == 0) {
+                if (ox < min || ox > max) return -1;
+            }
+            else {
+                double t1 = (min - ox) / dx;
+                double t2 = (max - ox) / dx;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+                if (near > far) return -1;
+            }
+
+            // Y slab
+            min = SCRATCH.getY() - TOLERANCE;
+            max = SCRATCH.getY() + entity.getEyeHeight() * HEIGHT_SCALE + TOLERANCE;
+            if (dy == 0) {
+                if (oy < min || oy > max) return -1;
+            }
+            else {
+                double t1 = (min - oy) / dy;
+                double t2 = (max - oy) / dy;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+                if (near > far) return -1;
+            }
+
+            // Z slab
+            min = SCRATCH.getZ() - pad;
+            max = SCRATCH.getZ() + pad;
+            if (dz == 0) {
+                if (oz < min || oz > max) return -1;
+            }
+            else {
+                double t1 = (min - oz) / dz;
+                double t2 = (max - oz) / dz;
+                near = Math.max(near, Math.min(t1, t2));
+                far = Math.min(far, Math.max(t1, t2));
+                if (near > far) return -1;
+            }
+
+            return near;
+        }
+    }
 }
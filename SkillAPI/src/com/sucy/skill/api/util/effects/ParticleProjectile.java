@@ -2,11 +2,15 @@ package com.sucy.skill.api.util.effects;
 
 import com.sucy.skill.BukkitHelper;
 import com.sucy.skill.SkillAPI;
+import com.sucy.skill.api.dynamic.Phase;
 import com.sucy.skill.api.event.ParticleProjectileHitEvent;
 import com.sucy.skill.api.event.ParticleProjectileLandEvent;
+import com.sucy.skill.api.skill.CastContext;
+import com.sucy.skill.api.skill.ClassSkill;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
@@ -18,8 +22,6 @@ import java.util.List;
  */
 public class ParticleProjectile extends BukkitRunnable {
 
-    public static boolean damaging = false;
-
     private SkillAPI plugin;
     private LivingEntity shooter;
     private Location loc;
@@ -30,9 +32,13 @@ public class ParticleProjectile extends BukkitRunnable {
     private int delay;
     private int count;
     private double damage;
+    private ClassSkill skill;
+    private int level;
 
     /**
-     * Constructor
+     * <p>Constructor</p>
+     * <p>Projectiles launched while a skill is being used deal their
+     * damage as that skill.</p>
      *
      * @param shooter  entity that shot the projectile
      * @param loc      initial location of the projectile
@@ -51,6 +57,11 @@ public class ParticleProjectile extends BukkitRunnable {
         this.data = data;
         this.delay = delay;
         this.damage = damage;
+        CastContext context = CastContext.current();
+        if (context != null) {
+            this.skill = context.getSkill();
+            this.level = context.getLevel();
+        }
         steps = (int)Math.ceil(vel.length() * 2);
         vel.multiply(1.0 / steps);
         runTaskTimer(plugin, 1, 1);
@@ -114,7 +125,7 @@ public class ParticleProjectile extends BukkitRunnable {
      */
     @Override
     public void run() {
-        List<LivingEntity> list = loc.getWorld().getLivingEntities();
+        List<LivingEntity> list = plugin.getSpatialIndex().getInSphere(loc, vel.length() * steps + 1.5);
 
         // Go through multiple steps to avoid tunneling
         for (int i = 0; i < steps; i++) {
@@ -140,10 +151,15 @@ public class ParticleProjectile extends BukkitRunnable {
                 if (entity.getLocation().distanceSquared(loc) < 2.25) {
                     cancel();
                     ParticleHelper.fillSphere(entity.getLocation(), particle, data, 1, 10);
-                    damaging = true;
-                    plugin.getServer().getPluginManager().callEvent(new ParticleProjectileHitEvent(this, entity));
-                    BukkitHelper.damage(entity, shooter, damage);
-                    damaging = false;
+                    Player caster = shooter instanceof Player ? (Player)shooter : null;
+                    CastContext context = CastContext.begin(caster, caster == null ? null : plugin.getPlayer(caster), skill, level, Phase.EMBED, loc);
+                    try {
+                        plugin.getServer().getPluginManager().callEvent(new ParticleProjectileHitEvent(this, entity));
+                        BukkitHelper.damage(entity, shooter, damage);
+                    }
+                    finally {
+                        CastContext.end(context);
+                    }
                     return;
                 }
             }
@@ -4,31 +4,33 @@ import com.sucy.skill.SkillAPI;
 import com.sucy.skill.api.CustomClass;
 import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.skill.ClassSkill;
-import org.bukkit.entity.Player;
-
-import java.util.ArrayList;
 
 /**
- * Click history for a single player
+ * <p>Click history for a single player</p>
+ * <p>The clicks are packed into the bits of a single int, where a set
+ * bit is a right click, along with how many clicks there are and the
+ * tick of the last one. Recording a click doesn't allocate anything.</p>
  */
 public class ClickHistory {
 
-    private static final long limit = 1000;
+    private static final int limit = 20;
 
-    private final ArrayList<MouseClick> entries = new ArrayList<MouseClick>();
     private final SkillAPI api;
-    private final String player;
+    private final PlayerSkills player;
 
-    private long timer;
+    private int clicks;
+    private int count;
+    private int tick;
 
     /**
      * Constructor
      *
-     * @param api api reference
+     * @param api    api reference
+     * @param player data of the player the history is for
      */
-    public ClickHistory(SkillAPI api, Player player) {
+    public ClickHistory(SkillAPI api, PlayerSkills player) {
         this.api = api;
-        this.player = player.getName();
+        this.player = player;
     }
 
     /**
@@ -37,44 +39,35 @@ public class ClickHistory {
      * @param click click to add
      */
     public void addClick(MouseClick click) {
-        entries.add(click);
-        updateEntries();
-        if (entries.size() == 0) entries.add(click);
-    }
-
-    /**
-     * Updates the click entries, casting a skill or clearing them as applicable
-     */
-    private void updateEntries() {
 
-        // Clear the entries if time expired
-        if (entries.size() > 0 && System.currentTimeMillis() - timer > limit) {
-            entries.clear();
+        // Start over if time expired
+        int now = api.getTick();
+        if (count > 0 && now - tick > limit) {
+            clicks = 0;
+            count = 0;
         }
 
-        // Search for a skill after 4 clicks
-        else if (entries.size() == 4) {
+        // Record the click
+        if (click == MouseClick.RIGHT) clicks |= 1 << count;
+        count++;
 
-            PlayerSkills player = api.getPlayer(this.player);
+        // Search for a skill after 4 clicks
+        if (count == 4) {
+            int combo = clicks;
+            clicks = 0;
+            count = 0;
             if (!player.hasClass()) return;
 
             CustomClass c = api.getClass(player.getClassName());
-            ClassSkill skill = c.getSkill(entries.get(0), entries.get(1), entries.get(2), entries.get(3));
-            entries.clear();
-
-            // Cast the skill if one is found
-            if (skill != null) {
-
-                // Doesn't have the skill
-                if (!player.hasSkillUnlocked(skill.getName())) {
-                    return;
-                }
+            ClassSkill skill = c.getSkill(combo);
 
+            // Cast the skill if one is found and the player has it
+            if (skill != null && player.hasSkill(skill) && player.getSkillLevel(skill) > 0) {
                 player.castSkill(skill.getName());
             }
         }
 
         // Update the timer
-        timer = System.currentTimeMillis();
+        tick = now;
     }
 }
@@ -2,7 +2,7 @@ package com.sucy.skill.command.basic;
 
 import com.sucy.skill.PermissionNodes;
 import com.sucy.skill.SkillAPI;
-import com.sucy.skill.api.PlayerSkills;
+import com.sucy.skill.api.OfflinePlayerSummary;
 import com.sucy.skill.command.CommandHandler;
 import com.sucy.skill.command.ICommand;
 import com.sucy.skill.command.SenderType;
@@ -29,7 +29,7 @@ public class CmdInfoConsole implements ICommand {
     public void execute(CommandHandler handler, Plugin plugin, CommandSender sender, String[] args) {
 
         SkillAPI api = (SkillAPI)plugin;
-        PlayerSkills player;
+        OfflinePlayerSummary player;
 
         // Not enough arguments
         if (args.length == 0) {
@@ -37,8 +37,8 @@ public class CmdInfoConsole implements ICommand {
             return;
         }
 
-        // Otherwise get the target player
-        else player = api.getPlayer(args[0]);
+        // Otherwise get the target player without loading all of their data
+        else player = api.getPlayerSummary(args[0]);
 
 
         // Invalid player
@@ -54,17 +54,18 @@ public class CmdInfoConsole implements ICommand {
             // Get the messages
             List<String> messages;
             String base = CommandNodes.COMPLETE + CommandNodes.INFO_CONSOLE;
-            if (player.getClassName() == null) messages = api.getMessages(base + CommandNodes.NO_CLASS, true);
+            if (!player.hasClass()) messages = api.getMessages(base + CommandNodes.NO_CLASS, true);
             else messages = api.getMessages(base + CommandNodes.HAS_CLASS, true);
 
             // Filter and send the messages
+            int requiredExp = api.getRequiredExp(player.getLevel());
             for (String string : messages) {
-                string = string.replace("{player}", player.getPlayer().getName())
-                               .replace("{class}", player.getClassName())
+                string = string.replace("{player}", player.getName())
+                               .replace("{class}", player.hasClass() ? player.getClassName() : "")
                                .replace("{level}", player.getLevel() + "")
                                .replace("{exp}", player.getExp() + "")
-                               .replace("{req-exp}", player.getRequiredExp() + "")
-                               .replace("{exp-left}", player.getExpToNextLevel() + "")
+                               .replace("{req-exp}", requiredExp + "")
+                               .replace("{exp-left}", (requiredExp - player.getExp()) + "")
                                .replace("{points}", player.getPoints() + "");
 
                 sender.sendMessage(string);
@@ -105,6 +105,26 @@ public enum SettingValues {
      */
     SKILL_MESSAGE_RADIUS,
 
+    /**
+     * Whether or not player data is only loaded when it is needed
+     */
+    LAZY_LOADING,
+
+    /**
+     * How often in seconds changed player data is saved
+     */
+    AUTO_SAVE_FREQ,
+
+    /**
+     * Where player data is stored, either "yaml" or "sql"
+     */
+    STORAGE,
+
+    /**
+     * How many offline players can be kept loaded when loading lazily
+     */
+    OFFLINE_CACHE_SIZE,
+
     ;
 
     /**
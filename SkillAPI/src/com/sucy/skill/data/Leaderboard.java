@@ -0,0 +1,103 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.api.LeaderboardEntry;
+import com.sucy.skill.api.OfflinePlayerSummary;
+import com.sucy.skill.api.PlayerSkills;
+
+import java.util.*;
+
+/**
+ * <p>Ranks the players of each class by level and experience</p>
+ * <p>The rankings are kept sorted as players progress, so updates take
+ * logarithmic time and getting the top players only looks at as many
+ * entries as requested.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class Leaderboard {
+
+    private final HashMap<String, TreeSet<LeaderboardEntry>> classes = new HashMap<String, TreeSet<LeaderboardEntry>>();
+    private final HashMap<String, LeaderboardEntry> players = new HashMap<String, LeaderboardEntry>();
+
+    /**
+     * <p>Updates the position of a player</p>
+     * <p>Players without a class are removed from the rankings</p>
+     *
+     * @param data player data
+     */
+    public void update(PlayerSkills data) {
+        if (data.isPlaceholder()) return;
+        update(data.getName(), data.getClassName(), data.getLevel(), data.getExp(), true);
+    }
+
+    /**
+     * <p>Adds a player from the summary of their stored data</p>
+     * <p>Players that are already ranked are left alone since their
+     * stored data can only be older.</p>
+     *
+     * @param data summary of the stored player data
+     */
+    public void add(OfflinePlayerSummary data) {
+        update(data.getName(), data.getClassName(), data.getLevel(), data.getExp(), false);
+    }
+
+    /**
+     * Updates the position of a player
+     *
+     * @param name      player name
+     * @param className name of the player's class or null if none
+     * @param level     class level
+     * @param exp       class experience
+     * @param replace   whether or not to replace an existing entry
+     */
+    private synchronized void update(String name, String className, int level, int exp, boolean replace) {
+        String key = name.toLowerCase();
+        LeaderboardEntry previous = players.get(key);
+        if (previous != null) {
+            if (!replace) return;
+            if (previous.getLevel() == level && previous.getExp() == exp
+                    && previous.getClassName().equals(className)) return;
+
+            TreeSet<LeaderboardEntry> ranking = classes.get(previous.getClassName().toLowerCase());
+            ranking.remove(previous);
+            players.remove(key);
+        }
+        if (className == null) return;
+
+        LeaderboardEntry entry = new LeaderboardEntry(name, className, level, exp);
+        TreeSet<LeaderboardEntry> ranking = classes.get(className.toLowerCase());
+        if (ranking == null) {
+            ranking = new TreeSet<LeaderboardEntry>();
+            classes.put(className.toLowerCase(), ranking);
+        }
+        ranking.add(entry);
+        players.put(key, entry);
+    }
+
+    /**
+     * <p>Retrieves the highest ranked players of a class</p>
+     * <p>The class name is not case-sensitive</p>
+     *
+     * @param className name of the class
+     * @param amount    maximum number of players to get
+     * @return          highest ranked players, best first
+     */
+    public synchronized List<LeaderboardEntry> getTop(String className, int amount) {
+        List<LeaderboardEntry> top = new ArrayList<LeaderboardEntry>();
+        TreeSet<LeaderboardEntry> ranking = classes.get(className.toLowerCase());
+        if (ranking == null) return top;
+
+        Iterator<LeaderboardEntry> iterator = ranking.iterator();
+        while (top.size() < amount && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    /**
+     * Removes all players from the rankings
+     */
+    public synchronized void clear() {
+        classes.clear();
+        players.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.api.PlayerSkills;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Holds the data of players that were loaded while offline</p>
+ * <p>Once the cache is full, the least recently used player is dropped
+ * to make room, saving their data first if it changed. Online players
+ * are never kept in here so they can't be dropped.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class OfflinePlayerCache {
+
+    private final WriteBehindQueue writer;
+    private final Cache cache;
+
+    /**
+     * Constructor
+     *
+     * @param writer   queue to save dropped players with
+     * @param capacity maximum number of players to keep, or 0 for no limit
+     */
+    public OfflinePlayerCache(WriteBehindQueue writer, int capacity) {
+        this.writer = writer;
+        this.cache = new Cache(capacity);
+    }
+
+    /**
+     * <p>Retrieves the data of a player, marking it as recently used</p>
+     *
+     * @param lower lower case player name
+     * @return      player data or null if not in the cache
+     */
+    public synchronized PlayerSkills get(String lower) {
+        return cache.get(lower);
+    }
+
+    /**
+     * <p>Adds the data of a player unless it is already in the cache</p>
+     *
+     * @param lower lower case player name
+     * @param data  player data
+     * @return      the data already in the cache or null if it was added
+     */
+    public synchronized PlayerSkills putIfAbsent(String lower, PlayerSkills data) {
+        PlayerSkills existing = cache.get(lower);
+        if (existing != null) return existing;
+        cache.put(lower, data);
+        return null;
+    }
+
+    /**
+     * Adds the data of a player, replacing any previous data
+     *
+     * @param lower lower case player name
+     * @param data  player data
+     */
+    public synchronized void put(String lower, PlayerSkills data) {
+        cache.put(lower, data);
+    }
+
+    /**
+     * <p>Removes the data of a player without saving it</p>
+     *
+     * @param lower lower case player name
+     * @return      removed data or null if it wasn't in the cache
+     */
+    public synchronized PlayerSkills remove(String lower) {
+        return cache.remove(lower);
+    }
+
+    /**
+     * @return copy of the data of all players in the cache
+     */
+    public synchronized List<PlayerSkills> values() {
+        return new ArrayList<PlayerSkills>(cache.values());
+    }
+
+    /**
+     * Removes all players from the cache without saving them
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Map ordered by access that drops its eldest entry when full
+     */
+    private class Cache extends LinkedHashMap<String, PlayerSkills> {
+
+        private final int capacity;
+
+        /**
+         * Constructor
+         *
+         * @param capacity maximum number of entries, or 0 for no limit
+         */
+        public Cache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * Saves and drops the least recently used player when full
+         *
+         * @param eldest least recently used entry
+         * @return       true if the entry should be dropped
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlayerSkills> eldest) {
+            if (capacity <= 0 || size() <= capacity) return false;
+            if (eldest.getValue().isDirty()) writer.queue(eldest.getValue().snapshot());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sucy.skill.data;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>Storage for the data of players</p>
+ * <p>Methods may be called from both the main thread and the thread
+ * writing player data, so implementations need to be thread-safe.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public interface PlayerDataStore {
+
+    /**
+     * <p>Checks whether or not data is stored for the player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     true if stored, false otherwise
+     */
+    public boolean contains(String name);
+
+    /**
+     * <p>Loads the stored data of a player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     stored data or null if there is none
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    public PlayerSnapshot load(String name);
+
+    /**
+     * <p>Saves the data of a player</p>
+     * <p>Failures are logged by the store</p>
+     *
+     * @param data player data to save
+     * @return     true if saved, false otherwise
+     */
+    public boolean save(PlayerSnapshot data);
+
+    /**
+     * <p>Saves the data of multiple players</p>
+     * <p>Stores should save these together as efficiently as they can.
+     * Failures are logged by the store and the data that couldn't be
+     * saved is returned so it can be tried again.</p>
+     *
+     * @param data player data to save
+     * @return     data that wasn't saved, empty if everything was saved
+     */
+    public List<PlayerSnapshot> saveAll(Collection<PlayerSnapshot> data);
+
+    /**
+     * <p>Retrieves the lower case names of all players with stored data</p>
+     * <p>This can be slow so only use it when all data is actually needed.</p>
+     *
+     * @return names of all stored players
+     */
+    public List<String> getNames();
+
+    /**
+     * Releases any resources held by the store
+     */
+    public void close();
+}
@@ -0,0 +1,230 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.api.CustomClass;
+import com.sucy.skill.api.OfflinePlayerSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>Compact index of the class, level and experience of every stored player</p>
+ * <p>The index is a memory-mapped file of fixed-width records so looking
+ * up an offline player never has to read their full data. Each record is
+ * laid out as:</p>
+ * <p>name (16 bytes), class name hash (4), level (4), exp (4), points (4), last seen (8)</p>
+ * <p>Class names are stored as the hash of their lower case name and are
+ * resolved against the loaded classes.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class PlayerIndex {
+
+    private static final int MAGIC = 0x53414958;
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+    private static final int NAME = 16;
+    private static final int RECORD = 40;
+    private static final int INITIAL = 256;
+
+    private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+    private final HashMap<Integer, String> classNames = new HashMap<Integer, String>();
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    private MappedByteBuffer buffer;
+    private int count;
+
+    /**
+     * <p>Constructor</p>
+     * <p>Opens the index file, starting over if it is missing or from
+     * a different version</p>
+     *
+     * @param indexFile file to keep the index in
+     * @param classes   loaded classes to resolve class names with
+     * @throws IOException if the file couldn't be opened
+     */
+    public PlayerIndex(File indexFile, Collection<CustomClass> classes) throws IOException {
+        for (CustomClass c : classes) {
+            classNames.put(c.getName().toLowerCase().hashCode(), c.getName());
+        }
+
+        file = new RandomAccessFile(indexFile, "rw");
+        channel = file.getChannel();
+        boolean valid = file.length() >= HEADER;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(file.length(), HEADER + RECORD * INITIAL));
+
+        // Start over if the file isn't a valid index
+        if (!valid || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, 0);
+        }
+
+        // Find where each player is
+        count = buffer.getInt(8);
+        byte[] name = new byte[NAME];
+        for (int i = 0; i < count; i++) {
+            buffer.position(HEADER + i * RECORD);
+            buffer.get(name);
+            slots.put(decodeName(name).toLowerCase(), i);
+        }
+    }
+
+    /**
+     * @return number of players in the index
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * <p>Updates the record of a player from their saved data</p>
+     * <p>The time they were last seen is kept as it was</p>
+     *
+     * @param data saved player data
+     */
+    public synchronized void update(PlayerSnapshot data) {
+        int offset = getOffset(data.getName(), true);
+        String className = data.getClassName();
+        if (className != null) classNames.put(className.toLowerCase().hashCode(), className);
+        buffer.putInt(offset + NAME, className == null ? 0 : className.toLowerCase().hashCode());
+        buffer.putInt(offset + NAME + 4, data.getLevel());
+        buffer.putInt(offset + NAME + 8, data.getExp());
+        buffer.putInt(offset + NAME + 12, data.getPoints());
+    }
+
+    /**
+     * <p>Sets the time a player was last seen</p>
+     * <p>Players without a record are ignored</p>
+     *
+     * @param name player name
+     * @param time time in milliseconds
+     */
+    public synchronized void touch(String name, long time) {
+        int offset = getOffset(name, false);
+        if (offset >= 0) buffer.putLong(offset + NAME + 16, time);
+    }
+
+    /**
+     * <p>Retrieves the summary of a player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     summary or null if the player has no record
+     */
+    public synchronized OfflinePlayerSummary get(String name) {
+        Integer slot = slots.get(name.toLowerCase());
+        if (slot == null) return null;
+        return read(slot);
+    }
+
+    /**
+     * @return summaries of all players in the index
+     */
+    public synchronized List<OfflinePlayerSummary> getAll() {
+        List<OfflinePlayerSummary> list = new ArrayList<OfflinePlayerSummary>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(read(i));
+        }
+        return list;
+    }
+
+    /**
+     * Writes any changes to the disk and closes the file
+     */
+    public synchronized void close() {
+        buffer.force();
+        try {
+            channel.close();
+            file.close();
+        }
+        catch (IOException ex) { /* */ }
+    }
+
+    /**
+     * Reads the record in a slot
+     *
+     * @param slot slot of the record
+     * @return     summary of the record
+     */
+    private OfflinePlayerSummary read(int slot) {
+        int offset = HEADER + slot * RECORD;
+        byte[] name = new byte[NAME];
+        buffer.position(offset);
+        buffer.get(name);
+        int classHash = buffer.getInt(offset + NAME);
+        return new OfflinePlayerSummary(decodeName(name), classHash == 0 ? null : classNames.get(classHash),
+                buffer.getInt(offset + NAME + 4), buffer.getInt(offset + NAME + 8),
+                buffer.getInt(offset + NAME + 12), buffer.getLong(offset + NAME + 16));
+    }
+
+    /**
+     * Gets the offset of the record of a player
+     *
+     * @param name   player name
+     * @param create whether or not to add a record if there isn't one
+     * @return       offset of the record or -1 if there isn't one
+     */
+    private int getOffset(String name, boolean create) {
+        String key = name.toLowerCase();
+        Integer slot = slots.get(key);
+        if (slot != null) return HEADER + slot * RECORD;
+        if (!create) return -1;
+
+        // Make room if the mapped region is full
+        int offset = HEADER + count * RECORD;
+        if (offset + RECORD > buffer.capacity()) {
+            try {
+                buffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long)RECORD * count * 2);
+            }
+            catch (IOException ex) {
+                throw new IllegalStateException("Could not grow the player index", ex);
+            }
+        }
+
+        // New records start out seen now
+        buffer.position(offset);
+        buffer.put(encodeName(name));
+        buffer.putLong(offset + NAME + 16, System.currentTimeMillis());
+        slots.put(key, count);
+        buffer.putInt(8, ++count);
+        return offset;
+    }
+
+    /**
+     * Converts a name to its fixed-width form
+     *
+     * @param name player name
+     * @return     name bytes padded with zeros
+     */
+    private static byte[] encodeName(String name) {
+        byte[] bytes = new byte[NAME];
+        for (int i = 0; i < NAME && i < name.length(); i++) {
+            char c = name.charAt(i);
+            bytes[i] = (byte)(c < 128 ? c : '?');
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts a fixed-width name back to a string
+     *
+     * @param bytes name bytes
+     * @return      player name
+     */
+    private static String decodeName(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(NAME);
+        for (byte b : bytes) {
+            if (b == 0) break;
+            builder.append((char) b);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.sucy.skill.data;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Holds player data read ahead of time while players log in</p>
+ * <p>Data is read on the asynchronous login thread so the main thread
+ * only has to pick it up when the player joins.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class PlayerPrefetcher {
+
+    /**
+     * Marks players that were checked but have no stored data
+     */
+    private static final PlayerSnapshot NONE = new PlayerSnapshot("", null, 1, 0, 0, 0,
+            new HashMap<String, Integer>(), new HashMap<String, String>(), new HashMap<String, Integer>());
+
+    private final ConcurrentHashMap<String, PlayerSnapshot> ready = new ConcurrentHashMap<String, PlayerSnapshot>();
+    private final PlayerDataStore store;
+    private final WriteBehindQueue writer;
+
+    /**
+     * Constructor
+     *
+     * @param store  store to read data from
+     * @param writer queue holding data that isn't written yet
+     */
+    public PlayerPrefetcher(PlayerDataStore store, WriteBehindQueue writer) {
+        this.store = store;
+        this.writer = writer;
+    }
+
+    /**
+     * <p>Reads the data of a player so it is ready when they join</p>
+     * <p>This blocks on the disk so only call it off the main thread</p>
+     *
+     * @param name player name
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    public void prefetch(String name) {
+        PlayerSnapshot data = writer.getPending(name);
+        if (data == null) data = store.load(name);
+        ready.put(name.toLowerCase(), data == null ? NONE : data);
+    }
+
+    /**
+     * @param lower lower case player name
+     * @return      true if the data of the player was read ahead of time
+     */
+    public boolean isReady(String lower) {
+        return ready.containsKey(lower);
+    }
+
+    /**
+     * <p>Takes the data read ahead of time for a player</p>
+     * <p>Check isReady(String) first, as this returns null both when
+     * the data isn't ready and when the player has no stored data.</p>
+     *
+     * @param lower lower case player name
+     * @return      read data or null if none
+     */
+    public PlayerSnapshot take(String lower) {
+        PlayerSnapshot data = ready.remove(lower);
+        return data == NONE ? null : data;
+    }
+
+    /**
+     * <p>Drops the data read ahead of time for a player</p>
+     * <p>Use this when the player doesn't join after all or when their
+     * data was loaded some other way, as it could be outdated later.</p>
+     *
+     * @param lower lower case player name
+     */
+    public void discard(String lower) {
+        ready.remove(lower);
+    }
+
+    /**
+     * Drops all data read ahead of time
+     */
+    public void clear() {
+        ready.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.config.PlayerValues;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Copy of the data of a player at one point in time</p>
+ * <p>Snapshots are taken on the main thread and never change
+ * afterwards so they can be written to the disk from any thread.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public final class PlayerSnapshot {
+
+    private final String name;
+    private final String className;
+    private final int level;
+    private final int exp;
+    private final int points;
+    private final int mana;
+    private final Map<String, Integer> skills;
+    private final Map<String, String> binds;
+    private final Map<String, Integer> values;
+
+    /**
+     * <p>Constructor</p>
+     * <p>The maps are copied so they can still be changed afterwards.
+     * Bind keys are the names of the bound materials.</p>
+     *
+     * @param name      player name
+     * @param className name of the player's class or null if none
+     * @param level     class level
+     * @param exp       class experience
+     * @param points    skill points
+     * @param mana      current mana
+     * @param skills    skill levels
+     * @param binds     skill binds
+     * @param values    dynamic values
+     */
+    public PlayerSnapshot(String name, String className, int level, int exp, int points, int mana,
+                          Map<String, Integer> skills, Map<String, String> binds, Map<String, Integer> values) {
+        this.name = name;
+        this.className = className;
+        this.level = level;
+        this.exp = exp;
+        this.points = points;
+        this.mana = mana;
+        this.skills = Collections.unmodifiableMap(new HashMap<String, Integer>(skills));
+        this.binds = Collections.unmodifiableMap(new HashMap<String, String>(binds));
+        this.values = Collections.unmodifiableMap(new HashMap<String, Integer>(values));
+    }
+
+    /**
+     * @return name of the player
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return name of the player's class or null if none
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return class level of the player
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return class experience of the player
+     */
+    public int getExp() {
+        return exp;
+    }
+
+    /**
+     * @return skill points of the player
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * @return mana of the player
+     */
+    public int getMana() {
+        return mana;
+    }
+
+    /**
+     * @return read-only map of skill names to skill levels
+     */
+    public Map<String, Integer> getSkills() {
+        return skills;
+    }
+
+    /**
+     * @return read-only map of material names to bound skill names
+     */
+    public Map<String, String> getBinds() {
+        return binds;
+    }
+
+    /**
+     * @return read-only map of dynamic values
+     */
+    public Map<String, Integer> getValues() {
+        return values;
+    }
+
+    /**
+     * <p>Loads a snapshot from the configuration section</p>
+     * <p>This reads the format written by save(ConfigurationSection).</p>
+     *
+     * @param name   player name
+     * @param config config to load from
+     * @return       loaded snapshot
+     */
+    public static PlayerSnapshot load(String name, ConfigurationSection config) {
+        HashMap<String, Integer> skills = new HashMap<String, Integer>();
+        ConfigurationSection skillConfig = config.getConfigurationSection(PlayerValues.SKILLS);
+        if (skillConfig != null) {
+            for (String skill : skillConfig.getKeys(false)) {
+                skills.put(skill, skillConfig.getInt(skill));
+            }
+        }
+        HashMap<String, String> binds = new HashMap<String, String>();
+        ConfigurationSection bindConfig = config.getConfigurationSection(PlayerValues.BIND);
+        if (bindConfig != null) {
+            for (String bind : bindConfig.getKeys(false)) {
+                binds.put(bind, bindConfig.getString(bind));
+            }
+        }
+        HashMap<String, Integer> values = new HashMap<String, Integer>();
+        ConfigurationSection valueConfig = config.getConfigurationSection(PlayerValues.VALUES);
+        if (valueConfig != null) {
+            for (String key : valueConfig.getKeys(false)) {
+                values.put(key, valueConfig.getInt(key));
+            }
+        }
+        return new PlayerSnapshot(name, config.getString(PlayerValues.CLASS), config.getInt(PlayerValues.LEVEL),
+                config.getInt(PlayerValues.EXP), config.getInt(PlayerValues.POINTS), config.getInt(PlayerValues.MANA),
+                skills, binds, values);
+    }
+
+    /**
+     * <p>Saves the snapshot to the configuration section</p>
+     * <p>This uses the same format as PlayerSkills.save so the
+     * result can be loaded back into a PlayerSkills object.</p>
+     *
+     * @param config config to save to
+     */
+    public void save(ConfigurationSection config) {
+        config.set(PlayerValues.CLASS, className);
+        config.set(PlayerValues.LEVEL, level);
+        config.set(PlayerValues.EXP, exp);
+        config.set(PlayerValues.POINTS, points);
+        config.set(PlayerValues.MANA, mana);
+        ConfigurationSection valueConfig = config.createSection(PlayerValues.VALUES);
+        for (Map.Entry<String, Integer> entry : values.entrySet()) {
+            valueConfig.set(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : skills.entrySet()) {
+            config.set(PlayerValues.SKILLS + "." + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : binds.entrySet()) {
+            config.set(PlayerValues.BIND + "." + entry.getKey(), entry.getValue());
+        }
+    }
+}
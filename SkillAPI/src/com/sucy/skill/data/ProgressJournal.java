@@ -0,0 +1,500 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.SkillAPI;
+import com.sucy.skill.api.PlayerSkills;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * <p>Append-only journal of player progression</p>
+ * <p>Class changes, experience, levels, points and skill levels are
+ * recorded as small binary records whenever they change. Records are
+ * buffered in memory and written to the disk in batches by an
+ * asynchronous task, so they survive a crash that happens before
+ * the next save of the player.</p>
+ * <p>The journal is split into numbered segments. A checkpoint starts
+ * a new segment and once the player data saved at that point is
+ * written, the older segments are deleted. Any segments left over
+ * on startup are replayed on top of the stored data.</p>
+ * <p>Records hold absolute values rather than changes, so replaying
+ * a record more than once is harmless.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class ProgressJournal extends BukkitRunnable {
+
+    private static final String PREFIX = "journal-";
+    private static final String EXTENSION = ".dat";
+
+    private static final byte DEFINE_PLAYER = 0;
+    private static final byte DEFINE_SKILL = 1;
+    private static final byte PROGRESS = 2;
+    private static final byte SKILL = 3;
+    private static final byte CLASS = 4;
+
+    private final HashMap<String, Integer> playerIds = new HashMap<String, Integer>();
+    private final HashMap<String, Integer> skillIds = new HashMap<String, Integer>();
+    private final TreeMap<Integer, ByteArrayOutputStream> unwritten = new TreeMap<Integer, ByteArrayOutputStream>();
+    private final Object fileLock = new Object();
+    private final SkillAPI plugin;
+    private final File folder;
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private DataOutputStream out = new DataOutputStream(buffer);
+    private int segment;
+    private int retiredBelow;
+    private boolean closed;
+    private List<PlayerSnapshot> unsaved = new ArrayList<PlayerSnapshot>();
+
+    /**
+     * <p>Constructor</p>
+     * <p>Replays any segments left over from the last run into the store
+     * and starts the task that writes records to the disk.</p>
+     *
+     * @param plugin      API reference
+     * @param folder      folder to keep the segments in
+     * @param store       store to replay segments into
+     * @param index       index to update with replayed data, or null if none
+     * @param freqSeconds interval in seconds between writes to the disk
+     */
+    public ProgressJournal(SkillAPI plugin, File folder, PlayerDataStore store, PlayerIndex index, int freqSeconds) {
+        this.plugin = plugin;
+        this.folder = folder;
+        folder.mkdirs();
+        replay(store, index);
+        unwritten.put(segment, buffer);
+        runTaskTimerAsynchronously(plugin, freqSeconds * 20, freqSeconds * 20);
+    }
+
+    /**
+     * <p>Retrieves the replayed data that couldn't be saved on startup</p>
+     * <p>Queue it to be written before the first checkpoint. The segments
+     * it came from are kept until then.</p>
+     *
+     * @return replayed data that wasn't saved
+     */
+    public List<PlayerSnapshot> takeUnsaved() {
+        List<PlayerSnapshot> data = unsaved;
+        unsaved = new ArrayList<PlayerSnapshot>();
+        return data;
+    }
+
+    // ----------------------------- Recording -------------------------------------- //
+
+    /**
+     * Records the class of a player
+     *
+     * @param data player data
+     */
+    public synchronized void logClass(PlayerSkills data) {
+        if (closed || data.isPlaceholder()) return;
+        try {
+            int id = getPlayerId(data.getName());
+            out.writeByte(CLASS);
+            out.writeInt(id);
+            out.writeUTF(data.hasClass() ? data.getClassName() : "");
+        }
+        catch (IOException ex) { /* Can't happen with a memory buffer */ }
+    }
+
+    /**
+     * Records the level, experience and skill points of a player
+     *
+     * @param data player data
+     */
+    public synchronized void logProgress(PlayerSkills data) {
+        if (closed || data.isPlaceholder()) return;
+        try {
+            int id = getPlayerId(data.getName());
+            out.writeByte(PROGRESS);
+            out.writeInt(id);
+            out.writeInt(data.getLevel());
+            out.writeInt(data.getExp());
+            out.writeInt(data.getPoints());
+        }
+        catch (IOException ex) { /* Can't happen with a memory buffer */ }
+    }
+
+    /**
+     * Records the level of one skill of a player
+     *
+     * @param data  player data
+     * @param skill skill name
+     * @param level new skill level
+     */
+    public synchronized void logSkill(PlayerSkills data, String skill, int level) {
+        if (closed || data.isPlaceholder()) return;
+        try {
+            int id = getPlayerId(data.getName());
+            int skillId = getSkillId(skill.toLowerCase());
+            out.writeByte(SKILL);
+            out.writeInt(id);
+            out.writeInt(skillId);
+            out.writeInt(level);
+        }
+        catch (IOException ex) { /* Can't happen with a memory buffer */ }
+    }
+
+    /**
+     * Gets the id of a player in the current segment, defining it if needed
+     *
+     * @param name player name
+     * @return     player id
+     * @throws IOException never
+     */
+    private int getPlayerId(String name) throws IOException {
+        String key = name.toLowerCase();
+        Integer id = playerIds.get(key);
+        if (id == null) {
+            id = playerIds.size();
+            playerIds.put(key, id);
+            out.writeByte(DEFINE_PLAYER);
+            out.writeInt(id);
+            out.writeUTF(name);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a skill in the current segment, defining it if needed
+     *
+     * @param name lower case skill name
+     * @return     skill id
+     * @throws IOException never
+     */
+    private int getSkillId(String name) throws IOException {
+        Integer id = skillIds.get(name);
+        if (id == null) {
+            id = skillIds.size();
+            skillIds.put(name, id);
+            out.writeByte(DEFINE_SKILL);
+            out.writeInt(id);
+            out.writeUTF(name);
+        }
+        return id;
+    }
+
+    // ----------------------------- Segments -------------------------------------- //
+
+    /**
+     * <p>Starts a new segment</p>
+     * <p>Call this right after taking snapshots of all changed players.
+     * Everything recorded before then is covered by those snapshots.</p>
+     *
+     * @return number of the new segment, to be passed to retire(int)
+     *         once the snapshots are written
+     */
+    public synchronized int checkpoint() {
+        segment++;
+        buffer = new ByteArrayOutputStream();
+        out = new DataOutputStream(buffer);
+        playerIds.clear();
+        skillIds.clear();
+        unwritten.put(segment, buffer);
+        return segment;
+    }
+
+    /**
+     * <p>Deletes all segments before the given one</p>
+     * <p>Only call this once the data saved at the matching checkpoint
+     * has been written. This can be called from any thread.</p>
+     *
+     * @param segment first segment to keep
+     */
+    public void retire(int segment) {
+        synchronized (fileLock) {
+            retiredBelow = Math.max(retiredBelow, segment);
+            File[] files = folder.listFiles();
+            if (files == null) return;
+            for (File file : files) {
+                int number = getSegment(file);
+                if (number >= 0 && number < retiredBelow && !file.delete()) {
+                    plugin.getLogger().warning("Failed to delete old journal segment " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Writes buffered records to the disk</p>
+     * <p>Do not call this method</p>
+     */
+    public void run() {
+        synchronized (fileLock) {
+
+            // Take everything recorded so far
+            TreeMap<Integer, byte[]> data = new TreeMap<Integer, byte[]>();
+            synchronized (this) {
+                Iterator<Map.Entry<Integer, ByteArrayOutputStream>> iterator = unwritten.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Integer, ByteArrayOutputStream> entry = iterator.next();
+                    if (entry.getValue().size() > 0) {
+                        data.put(entry.getKey(), entry.getValue().toByteArray());
+                        entry.getValue().reset();
+                    }
+                    if (entry.getValue() != buffer) iterator.remove();
+                }
+            }
+
+            // Append it to the segment files, skipping segments that are no longer needed
+            for (Map.Entry<Integer, byte[]> entry : data.entrySet()) {
+                if (entry.getKey() < retiredBelow) continue;
+                append(new File(folder, PREFIX + entry.getKey() + EXTENSION), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * <p>Stops recording</p>
+     * <p>When all player data was written, the segments are no longer
+     * needed and get deleted. Otherwise everything recorded is written
+     * to the disk so it can be replayed on the next startup.</p>
+     *
+     * @param saved whether or not all player data was written
+     */
+    public void close(boolean saved) {
+        cancel();
+        if (saved) {
+            synchronized (this) {
+                closed = true;
+                unwritten.clear();
+            }
+            retire(Integer.MAX_VALUE);
+        }
+        else {
+            synchronized (this) {
+                closed = true;
+            }
+            run();
+        }
+    }
+
+    /**
+     * Appends data to a segment file and forces it to the disk
+     *
+     * @param file segment file
+     * @param data data to append
+     */
+    private void append(File file, byte[] data) {
+        FileOutputStream stream = null;
+        try {
+            stream = new FileOutputStream(file, true);
+            stream.write(data);
+            stream.flush();
+            stream.getFD().sync();
+        }
+        catch (IOException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write to the progress journal", ex);
+        }
+        finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                }
+                catch (IOException ex) { /* */ }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of a segment file
+     *
+     * @param file file to check
+     * @return     segment number or -1 if not a segment
+     */
+    private int getSegment(File file) {
+        String name = file.getName();
+        if (!name.startsWith(PREFIX) || !name.endsWith(EXTENSION)) return -1;
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    // ----------------------------- Replay -------------------------------------- //
+
+    /**
+     * <p>Applies all segments left over from the last run to the stored
+     * data and deletes them afterwards</p>
+     *
+     * @param store store to apply the segments to
+     * @param index index to update with the results, or null if none
+     */
+    private void replay(PlayerDataStore store, PlayerIndex index) {
+        TreeMap<Integer, File> segments = new TreeMap<Integer, File>();
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                int number = getSegment(file);
+                if (number >= 0) segments.put(number, file);
+            }
+        }
+        if (segments.isEmpty()) return;
+
+        HashMap<String, Replay> players = new HashMap<String, Replay>();
+        try {
+            for (File file : segments.values()) {
+                replay(file, store, players);
+            }
+        }
+
+        // Replaying onto missing data would overwrite the real data, so try again next time
+        catch (IllegalStateException ex) {
+            plugin.getLogger().severe("Could not read stored player data to replay the journal onto, keeping the journal");
+            segment = segments.lastKey() + 1;
+            return;
+        }
+
+        // Save the updated data
+        List<PlayerSnapshot> data = new ArrayList<PlayerSnapshot>();
+        for (Replay player : players.values()) {
+            data.add(player.toSnapshot());
+        }
+        List<PlayerSnapshot> failed = store.saveAll(data);
+        if (index != null) {
+            for (PlayerSnapshot snapshot : data) {
+                if (failed.isEmpty() || !failed.contains(snapshot)) index.update(snapshot);
+            }
+        }
+
+        // Keep the segments until the data that couldn't be saved is written
+        if (!failed.isEmpty()) {
+            plugin.getLogger().severe("Could not save recovered progress of " + failed.size() + " players, it will be saved later");
+            unsaved.addAll(failed);
+            segment = segments.lastKey() + 1;
+            return;
+        }
+        plugin.getLogger().info("Recovered progress of " + data.size() + " players from the journal");
+
+        for (File file : segments.values()) {
+            if (!file.delete()) plugin.getLogger().warning("Failed to delete journal segment " + file.getName());
+        }
+    }
+
+    /**
+     * <p>Applies the records of one segment</p>
+     * <p>A record cut off by a crash ends the segment</p>
+     *
+     * @param file    segment file
+     * @param store   store to get the current data from
+     * @param players data of the players being replayed
+     */
+    private void replay(File file, PlayerDataStore store, HashMap<String, Replay> players) {
+        HashMap<Integer, Replay> playerIds = new HashMap<Integer, Replay>();
+        HashMap<Integer, String> skillIds = new HashMap<Integer, String>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            while (true) {
+                byte type = in.readByte();
+                if (type == DEFINE_PLAYER) {
+                    int id = in.readInt();
+                    String name = in.readUTF();
+                    Replay player = players.get(name.toLowerCase());
+                    if (player == null) {
+                        player = new Replay(name, store.load(name));
+                        players.put(name.toLowerCase(), player);
+                    }
+                    playerIds.put(id, player);
+                }
+                else if (type == DEFINE_SKILL) {
+                    int id = in.readInt();
+                    skillIds.put(id, in.readUTF());
+                }
+                else if (type == PROGRESS) {
+                    Replay player = playerIds.get(in.readInt());
+                    int level = in.readInt();
+                    int exp = in.readInt();
+                    int points = in.readInt();
+                    if (player == null) continue;
+                    player.level = level;
+                    player.exp = exp;
+                    player.points = points;
+                }
+                else if (type == SKILL) {
+                    Replay player = playerIds.get(in.readInt());
+                    String skill = skillIds.get(in.readInt());
+                    int level = in.readInt();
+                    if (player == null || skill == null) continue;
+                    player.skills.put(skill, level);
+                }
+                else if (type == CLASS) {
+                    Replay player = playerIds.get(in.readInt());
+                    String className = in.readUTF();
+                    if (player == null) continue;
+                    player.className = className.length() == 0 ? null : className;
+
+                    // Changing class always zeroes the skill levels, matching setClass
+                    player.skills.clear();
+                }
+                else throw new IOException("Unknown record type " + type);
+            }
+        }
+        catch (EOFException ex) {
+            // End of the segment
+        }
+        catch (IOException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to read journal segment " + file.getName(), ex);
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException ex) { /* */ }
+            }
+        }
+    }
+
+    /**
+     * Data of a player while replaying
+     */
+    private class Replay {
+
+        private final PlayerSnapshot base;
+        private final String name;
+        private final HashMap<String, Integer> skills = new HashMap<String, Integer>();
+        private String className;
+        private int level;
+        private int exp;
+        private int points;
+
+        /**
+         * Constructor
+         *
+         * @param name player name
+         * @param base stored data or null if none
+         */
+        public Replay(String name, PlayerSnapshot base) {
+            this.name = name;
+            this.base = base;
+            if (base != null) {
+                skills.putAll(base.getSkills());
+                className = base.getClassName();
+                level = base.getLevel();
+                exp = base.getExp();
+                points = base.getPoints();
+            }
+            else {
+                level = 1;
+                points = plugin.getStartingPoints();
+            }
+        }
+
+        /**
+         * @return stored data with the replayed records applied
+         */
+        public PlayerSnapshot toSnapshot() {
+            if (base == null) {
+                return new PlayerSnapshot(name, className, level, exp, points, 0, skills,
+                        new HashMap<String, String>(), new HashMap<String, Integer>());
+            }
+            return new PlayerSnapshot(name, className, level, exp, points, base.getMana(), skills,
+                    base.getBinds(), base.getValues());
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.SkillAPI;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * <p>Stores player data in an embedded SQLite database</p>
+ * <p>Skills, binds and values each get their own table keyed by the
+ * lower case player name. Saving multiple players uses batched
+ * statements inside a single transaction.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class SQLDataStore implements PlayerDataStore {
+
+    private static final String DRIVER = "org.sqlite.JDBC";
+
+    private static final String[] TABLES = new String[] {
+            "CREATE TABLE IF NOT EXISTS players (name VARCHAR(32) PRIMARY KEY, class VARCHAR(64), level INT, exp INT, points INT, mana INT)",
+            "CREATE TABLE IF NOT EXISTS player_skills (player VARCHAR(32), skill VARCHAR(64), level INT, PRIMARY KEY (player, skill))",
+            "CREATE TABLE IF NOT EXISTS player_binds (player VARCHAR(32), material VARCHAR(64), skill VARCHAR(64), PRIMARY KEY (player, material))",
+            "CREATE TABLE IF NOT EXISTS player_values (player VARCHAR(32), name VARCHAR(64), value INT, PRIMARY KEY (player, name))"
+    };
+
+    private final SkillAPI plugin;
+    private final Connection connection;
+
+    /**
+     * <p>Constructor</p>
+     * <p>Opens the database, creating the tables if needed</p>
+     *
+     * @param plugin API reference
+     * @param file   database file
+     * @throws SQLException if the database could not be opened
+     */
+    public SQLDataStore(SkillAPI plugin, File file) throws SQLException {
+        this.plugin = plugin;
+        try {
+            Class.forName(DRIVER);
+        }
+        catch (ClassNotFoundException ex) {
+            throw new SQLException("The SQLite driver is not available");
+        }
+
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        Statement statement = connection.createStatement();
+        try {
+            for (String table : TABLES) {
+                statement.executeUpdate(table);
+            }
+        }
+        finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * <p>Checks whether or not the database has no players yet</p>
+     * <p>Unlike getNames(), this fails instead of reporting no players
+     * when the database can't be read.</p>
+     *
+     * @return true if no players are stored, false otherwise
+     * @throws SQLException if the database couldn't be read
+     */
+    public synchronized boolean isEmpty() throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            return !statement.executeQuery("SELECT 1 FROM players LIMIT 1").next();
+        }
+        finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * <p>Checks whether or not data is stored for the player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     true if stored, false otherwise
+     */
+    @Override
+    public synchronized boolean contains(String name) {
+        try {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM players WHERE name = ?");
+            try {
+                statement.setString(1, name.toLowerCase());
+                ResultSet result = statement.executeQuery();
+                return result.next();
+            }
+            finally {
+                statement.close();
+            }
+        }
+        catch (SQLException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not check player data for " + name, ex);
+            return false;
+        }
+    }
+
+    /**
+     * <p>Loads the stored data of a player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     stored data or null if there is none
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    @Override
+    public synchronized PlayerSnapshot load(String name) {
+        String key = name.toLowerCase();
+        try {
+
+            // Main player data
+            String className;
+            int level, exp, points, mana;
+            PreparedStatement statement = connection.prepareStatement("SELECT class, level, exp, points, mana FROM players WHERE name = ?");
+            try {
+                statement.setString(1, key);
+                ResultSet result = statement.executeQuery();
+                if (!result.next()) return null;
+                className = result.getString(1);
+                level = result.getInt(2);
+                exp = result.getInt(3);
+                points = result.getInt(4);
+                mana = result.getInt(5);
+            }
+            finally {
+                statement.close();
+            }
+
+            // Skills
+            HashMap<String, Integer> skills = new HashMap<String, Integer>();
+            statement = connection.prepareStatement("SELECT skill, level FROM player_skills WHERE player = ?");
+            try {
+                statement.setString(1, key);
+                ResultSet result = statement.executeQuery();
+                while (result.next()) {
+                    skills.put(result.getString(1), result.getInt(2));
+                }
+            }
+            finally {
+                statement.close();
+            }
+
+            // Binds
+            HashMap<String, String> binds = new HashMap<String, String>();
+            statement = connection.prepareStatement("SELECT material, skill FROM player_binds WHERE player = ?");
+            try {
+                statement.setString(1, key);
+                ResultSet result = statement.executeQuery();
+                while (result.next()) {
+                    binds.put(result.getString(1), result.getString(2));
+                }
+            }
+            finally {
+                statement.close();
+            }
+
+            // Values
+            HashMap<String, Integer> values = new HashMap<String, Integer>();
+            statement = connection.prepareStatement("SELECT name, value FROM player_values WHERE player = ?");
+            try {
+                statement.setString(1, key);
+                ResultSet result = statement.executeQuery();
+                while (result.next()) {
+                    values.put(result.getString(1), result.getInt(2));
+                }
+            }
+            finally {
+                statement.close();
+            }
+
+            return new PlayerSnapshot(name, className, level, exp, points, mana, skills, binds, values);
+        }
+        catch (SQLException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load player data for " + name, ex);
+            throw new IllegalStateException("Could not load player data for " + name, ex);
+        }
+    }
+
+    /**
+     * Saves the data of a player
+     *
+     * @param data player data to save
+     * @return     true if saved, false otherwise
+     */
+    @Override
+    public boolean save(PlayerSnapshot data) {
+        return saveAll(Collections.singletonList(data)).isEmpty();
+    }
+
+    /**
+     * <p>Saves the data of multiple players in a single transaction</p>
+     * <p>If anything fails, none of the players are saved</p>
+     *
+     * @param data player data to save
+     * @return     data that wasn't saved, empty if everything was saved
+     */
+    @Override
+    public synchronized List<PlayerSnapshot> saveAll(Collection<PlayerSnapshot> data) {
+        if (data.isEmpty()) return new ArrayList<PlayerSnapshot>();
+
+        PreparedStatement players = null, deleteSkills = null, deleteBinds = null, deleteValues = null,
+                skills = null, binds = null, values = null;
+        try {
+            connection.setAutoCommit(false);
+            players = connection.prepareStatement("INSERT OR REPLACE INTO players (name, class, level, exp, points, mana) VALUES (?, ?, ?, ?, ?, ?)");
+            deleteSkills = connection.prepareStatement("DELETE FROM player_skills WHERE player = ?");
+            deleteBinds = connection.prepareStatement("DELETE FROM player_binds WHERE player = ?");
+            deleteValues = connection.prepareStatement("DELETE FROM player_values WHERE player = ?");
+            skills = connection.prepareStatement("INSERT INTO player_skills (player, skill, level) VALUES (?, ?, ?)");
+            binds = connection.prepareStatement("INSERT INTO player_binds (player, material, skill) VALUES (?, ?, ?)");
+            values = connection.prepareStatement("INSERT INTO player_values (player, name, value) VALUES (?, ?, ?)");
+
+            // Queue up the statements for every player
+            for (PlayerSnapshot snapshot : data) {
+                String key = snapshot.getName().toLowerCase();
+
+                players.setString(1, key);
+                players.setString(2, snapshot.getClassName());
+                players.setInt(3, snapshot.getLevel());
+                players.setInt(4, snapshot.getExp());
+                players.setInt(5, snapshot.getPoints());
+                players.setInt(6, snapshot.getMana());
+                players.addBatch();
+
+                deleteSkills.setString(1, key);
+                deleteSkills.addBatch();
+                deleteBinds.setString(1, key);
+                deleteBinds.addBatch();
+                deleteValues.setString(1, key);
+                deleteValues.addBatch();
+
+                for (Map.Entry<String, Integer> entry : snapshot.getSkills().entrySet()) {
+                    skills.setString(1, key);
+                    skills.setString(2, entry.getKey());
+                    skills.setInt(3, entry.getValue());
+                    skills.addBatch();
+                }
+                for (Map.Entry<String, String> entry : snapshot.getBinds().entrySet()) {
+                    binds.setString(1, key);
+                    binds.setString(2, entry.getKey());
+                    binds.setString(3, entry.getValue());
+                    binds.addBatch();
+                }
+                for (Map.Entry<String, Integer> entry : snapshot.getValues().entrySet()) {
+                    values.setString(1, key);
+                    values.setString(2, entry.getKey());
+                    values.setInt(3, entry.getValue());
+                    values.addBatch();
+                }
+            }
+
+            // Old rows have to be gone before inserting the new ones
+            players.executeBatch();
+            deleteSkills.executeBatch();
+            deleteBinds.executeBatch();
+            deleteValues.executeBatch();
+            skills.executeBatch();
+            binds.executeBatch();
+            values.executeBatch();
+            connection.commit();
+            return new ArrayList<PlayerSnapshot>();
+        }
+        catch (SQLException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save player data for " + data.size() + " players", ex);
+            try {
+                connection.rollback();
+            }
+            catch (SQLException e) { /* */ }
+            return new ArrayList<PlayerSnapshot>(data);
+        }
+        finally {
+            close(players, deleteSkills, deleteBinds, deleteValues, skills, binds, values);
+            try {
+                connection.setAutoCommit(true);
+            }
+            catch (SQLException ex) { /* */ }
+        }
+    }
+
+    /**
+     * <p>Retrieves the lower case names of all players with stored data</p>
+     *
+     * @return names of all stored players
+     */
+    @Override
+    public synchronized List<String> getNames() {
+        List<String> names = new ArrayList<String>();
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet result = statement.executeQuery("SELECT name FROM players");
+                while (result.next()) {
+                    names.add(result.getString(1));
+                }
+            }
+            finally {
+                statement.close();
+            }
+        }
+        catch (SQLException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not read the names of stored players", ex);
+        }
+        return names;
+    }
+
+    /**
+     * Closes the database connection
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        }
+        catch (SQLException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not close the player database", ex);
+        }
+    }
+
+    /**
+     * Closes statements, ignoring any that weren't created
+     *
+     * @param statements statements to close
+     */
+    private void close(Statement ... statements) {
+        for (Statement statement : statements) {
+            if (statement == null) continue;
+            try {
+                statement.close();
+            }
+            catch (SQLException ex) { /* */ }
+        }
+    }
+}
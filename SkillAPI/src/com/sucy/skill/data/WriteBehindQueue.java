@@ -0,0 +1,231 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.SkillAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * <p>Writes player snapshots to the disk on a separate thread</p>
+ * <p>Snapshots are queued by player name, so queueing a newer snapshot
+ * for a player that is still waiting replaces the older one and only
+ * the latest data is ever written. Everything waiting is handed to the
+ * store at once so it can be saved together.</p>
+ * <p>Snapshots that fail to save are queued again and retried after a
+ * short delay. Tasks waiting on the writes only run once everything
+ * queued before them has actually been written.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class WriteBehindQueue implements Runnable {
+
+    private static final long RETRY_DELAY = 5000;
+
+    private final SkillAPI plugin;
+    private final PlayerDataStore store;
+    private final PlayerIndex index;
+    private final Thread thread;
+
+    private LinkedHashMap<String, PlayerSnapshot> pending = new LinkedHashMap<String, PlayerSnapshot>();
+    private LinkedHashMap<String, PlayerSnapshot> writing = new LinkedHashMap<String, PlayerSnapshot>();
+    private ArrayList<Runnable> callbacks = new ArrayList<Runnable>();
+    private boolean running = true;
+
+    /**
+     * <p>Constructor</p>
+     * <p>Starts the writing thread right away</p>
+     *
+     * @param plugin API reference
+     * @param store  store to write to
+     * @param index  index to update with written data, or null if none
+     */
+    public WriteBehindQueue(SkillAPI plugin, PlayerDataStore store, PlayerIndex index) {
+        this.plugin = plugin;
+        this.store = store;
+        this.index = index;
+        this.thread = new Thread(this, "SkillAPI Player Saver");
+        thread.start();
+    }
+
+    /**
+     * <p>Queues a snapshot to be written</p>
+     * <p>Any snapshot still waiting for the same player is dropped</p>
+     *
+     * @param snapshot snapshot to write
+     */
+    public synchronized void queue(PlayerSnapshot snapshot) {
+        if (!running) {
+            if (store.save(snapshot)) updateIndex(snapshot);
+            return;
+        }
+        pending.put(snapshot.getName().toLowerCase(), snapshot);
+        notifyAll();
+    }
+
+    /**
+     * <p>Runs a task on the writing thread once everything queued
+     * so far has been written</p>
+     * <p>If the data can't be written, the task waits until it is.</p>
+     *
+     * @param task task to run
+     */
+    public synchronized void afterWrite(Runnable task) {
+        if (!running) {
+            task.run();
+            return;
+        }
+        callbacks.add(task);
+        notifyAll();
+    }
+
+    /**
+     * <p>Retrieves the snapshot of a player that hasn't been written yet</p>
+     * <p>When this returns a snapshot, it is newer than what is in the
+     * player's file and should be used instead.</p>
+     *
+     * @param name player name
+     * @return     newest unwritten snapshot or null if none
+     */
+    public synchronized PlayerSnapshot getPending(String name) {
+        name = name.toLowerCase();
+        PlayerSnapshot snapshot = pending.get(name);
+        if (snapshot == null) snapshot = writing.get(name);
+        return snapshot;
+    }
+
+    /**
+     * <p>Writes queued snapshots until the queue is closed</p>
+     * <p>Do not call this method</p>
+     */
+    public void run() {
+        while (true) {
+
+            // Wait for snapshots and take all of them
+            List<Runnable> tasks;
+            synchronized (this) {
+                while (running && pending.isEmpty() && callbacks.isEmpty()) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty() && callbacks.isEmpty()) return;
+
+                LinkedHashMap<String, PlayerSnapshot> temp = writing;
+                writing = pending;
+                pending = temp;
+                tasks = callbacks;
+                callbacks = new ArrayList<Runnable>();
+            }
+
+            // Write them outside of the lock so queueing never waits on the disk
+            List<PlayerSnapshot> failed = write(writing.values());
+
+            // Anything that failed has to be written before the tasks can run
+            synchronized (this) {
+                requeue(failed);
+                writing.clear();
+                if (!failed.isEmpty()) {
+                    tasks.addAll(callbacks);
+                    callbacks = new ArrayList<Runnable>(tasks);
+
+                    // Leave the rest for close() when shutting down
+                    if (!running) return;
+                    try {
+                        wait(RETRY_DELAY);
+                    }
+                    catch (InterruptedException ex) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Writes snapshots to the store and updates the index with the ones that were written
+     *
+     * @param data snapshots to write
+     * @return     snapshots that weren't written
+     */
+    private List<PlayerSnapshot> write(Collection<PlayerSnapshot> data) {
+        List<PlayerSnapshot> failed;
+        try {
+            failed = store.saveAll(data);
+        }
+        catch (Exception ex) {
+            plugin.getLogger().severe("Failed to save player data for " + data.size() + " players: " + ex.getMessage());
+            failed = new ArrayList<PlayerSnapshot>(data);
+        }
+        for (PlayerSnapshot snapshot : data) {
+            if (failed.isEmpty() || !failed.contains(snapshot)) updateIndex(snapshot);
+        }
+        return failed;
+    }
+
+    /**
+     * <p>Queues snapshots that failed to write again</p>
+     * <p>Snapshots that were replaced by newer ones in the meantime are dropped</p>
+     *
+     * @param failed snapshots that failed to write
+     */
+    private void requeue(List<PlayerSnapshot> failed) {
+        for (PlayerSnapshot snapshot : failed) {
+            String key = snapshot.getName().toLowerCase();
+            if (!pending.containsKey(key)) pending.put(key, snapshot);
+        }
+    }
+
+    /**
+     * Updates the index with written data
+     *
+     * @param snapshot written data
+     */
+    private void updateIndex(PlayerSnapshot snapshot) {
+        if (index != null) index.update(snapshot);
+    }
+
+    /**
+     * <p>Stops the writing thread after everything queued is written</p>
+     * <p>This blocks until all data is on the disk. Data that still
+     * can't be written is given up on and the tasks waiting for it
+     * are not run.</p>
+     *
+     * @return true if everything was written, false otherwise
+     */
+    public boolean close() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Write anything the thread couldn't get to
+        synchronized (this) {
+            List<PlayerSnapshot> failed = write(pending.values());
+            pending.clear();
+            if (!failed.isEmpty()) {
+                plugin.getLogger().severe("Could not save player data for " + failed.size() + " players before shutting down");
+                callbacks.clear();
+                return false;
+            }
+            for (Runnable task : callbacks) {
+                task.run();
+            }
+            callbacks.clear();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.sucy.skill.data;
+
+import com.sucy.skill.SkillAPI;
+import com.sucy.skill.config.Config;
+import com.sucy.skill.config.PlayerValues;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * <p>Stores player data with one small file per player</p>
+ * <p>Files are spread over 256 shard folders using the hash of the
+ * lower case player name so no single folder gets too large. Each
+ * file is written to a temporary file first and then moved into
+ * place so a crash while saving can only ever affect that player.</p>
+ * <p>This is for the API use only. You should not use this class.</p>
+ */
+public class YamlDataStore implements PlayerDataStore {
+
+    private static final String EXTENSION = ".yml";
+    private static final String TEMP = ".tmp";
+
+    private final SkillAPI plugin;
+    private final File folder;
+
+    /**
+     * Constructor
+     *
+     * @param plugin API reference
+     * @param folder root folder of the player files
+     */
+    public YamlDataStore(SkillAPI plugin, File folder) {
+        this.plugin = plugin;
+        this.folder = folder;
+        if (folder.mkdirs()) {
+            plugin.getLogger().info("Created a new folder for player data");
+        }
+    }
+
+    /**
+     * <p>Checks whether or not data is stored for the player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     true if stored, false otherwise
+     */
+    @Override
+    public boolean contains(String name) {
+        return getFile(name).exists();
+    }
+
+    /**
+     * <p>Loads the stored data of a player</p>
+     * <p>The name is not case-sensitive</p>
+     *
+     * @param name player name
+     * @return     stored data or null if there is none
+     * @throws IllegalStateException if the stored data couldn't be read
+     */
+    @Override
+    public PlayerSnapshot load(String name) {
+        File file = getFile(name);
+        if (!file.exists()) return null;
+
+        // Unreadable files must not look like missing data or they'd be overwritten
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        }
+        catch (Exception ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load player data for " + name, ex);
+            throw new IllegalStateException("Could not load player data for " + name, ex);
+        }
+        return PlayerSnapshot.load(name, config);
+    }
+
+    /**
+     * <p>Saves the data of a player to their own file</p>
+     *
+     * @param data player data to save
+     * @return     true if saved, false otherwise
+     */
+    @Override
+    public boolean save(PlayerSnapshot data) {
+        YamlConfiguration config = new YamlConfiguration();
+        data.save(config);
+        return write(data.getName(), config);
+    }
+
+    /**
+     * <p>Saves the data of multiple players</p>
+     * <p>Each player still gets their own file so this simply
+     * saves them one after another. A failed file doesn't stop
+     * the rest from being saved.</p>
+     *
+     * @param data player data to save
+     * @return     data that wasn't saved, empty if everything was saved
+     */
+    @Override
+    public List<PlayerSnapshot> saveAll(Collection<PlayerSnapshot> data) {
+        List<PlayerSnapshot> failed = new ArrayList<PlayerSnapshot>();
+        for (PlayerSnapshot snapshot : data) {
+            if (!save(snapshot)) failed.add(snapshot);
+        }
+        return failed;
+    }
+
+    /**
+     * <p>Retrieves the lower case names of all players with stored data</p>
+     * <p>This has to list every shard folder so only use it when
+     * all data is actually needed.</p>
+     *
+     * @return names of all stored players
+     */
+    @Override
+    public List<String> getNames() {
+        List<String> names = new ArrayList<String>();
+        File[] shards = folder.listFiles();
+        if (shards == null) return names;
+        for (File shard : shards) {
+            String[] files = shard.list();
+            if (files == null) continue;
+            for (String file : files) {
+                if (file.endsWith(EXTENSION)) {
+                    names.add(file.substring(0, file.length() - EXTENSION.length()));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Nothing needs to be released for files
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * <p>Moves all player data out of the old players.yml file into the
+     * separate player files</p>
+     * <p>The old file is renamed afterwards so this only happens once.
+     * If any player couldn't be written, the file is kept so the
+     * migration runs again next time. Players that already have their
+     * own file are skipped since it may have changed since.</p>
+     *
+     * @param legacy old player config
+     * @return       names of the players that were moved
+     */
+    public List<String> migrate(Config legacy) {
+        List<String> migrated = new ArrayList<String>();
+        if (!legacy.getConfigFile().exists()) return migrated;
+
+        ConfigurationSection root = legacy.getConfig().getConfigurationSection(PlayerValues.ROOT);
+        List<String> failed = new ArrayList<String>();
+        if (root != null) {
+            for (String name : root.getKeys(false)) {
+                ConfigurationSection section = root.getConfigurationSection(name);
+                if (section == null || getFile(name).exists()) continue;
+
+                YamlConfiguration config = new YamlConfiguration();
+                copy(section, config);
+                if (write(name, config)) migrated.add(name);
+                else failed.add(name);
+            }
+        }
+
+        // Try again next time if anything couldn't be written
+        if (failed.size() > 0) {
+            plugin.getLogger().severe("Failed to migrate the data of " + failed.size() + " players, keeping "
+                    + legacy.getConfigFile() + " to try again next time: " + failed);
+            return migrated;
+        }
+
+        // Keep the old file around as a backup
+        File backup = new File(legacy.getConfigFile().getPath() + ".old");
+        if (legacy.getConfigFile().renameTo(backup)) {
+            plugin.getLogger().info("Migrated data of " + migrated.size() + " players to separate files");
+        }
+        else plugin.getLogger().severe("Failed to rename " + legacy.getConfigFile() + " after migrating player data");
+        return migrated;
+    }
+
+    /**
+     * Copies the contents of one section into another
+     *
+     * @param from section to copy from
+     * @param to   section to copy to
+     */
+    private void copy(ConfigurationSection from, ConfigurationSection to) {
+        for (String key : from.getKeys(false)) {
+            if (from.isConfigurationSection(key)) copy(from.getConfigurationSection(key), to.createSection(key));
+            else to.set(key, from.get(key));
+        }
+    }
+
+    /**
+     * Writes the data to the player's file, replacing it only after
+     * the new data is completely on the disk
+     *
+     * @param name   player name
+     * @param config data to write
+     * @return       true if successful, false otherwise
+     */
+    private boolean write(String name, YamlConfiguration config) {
+        File file = getFile(name);
+        File temp = new File(file.getPath() + TEMP);
+        file.getParentFile().mkdirs();
+
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(config.saveToString().getBytes("UTF-8"));
+            out.flush();
+            out.getFD().sync();
+            out.close();
+            out = null;
+
+            // Some systems cannot rename onto an existing file
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException("Could not move " + temp + " to " + file);
+            }
+            return true;
+        }
+        catch (IOException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save player data for " + name, ex);
+            return false;
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch (IOException ex) { /* */ }
+            }
+        }
+    }
+
+    /**
+     * Gets the file containing the data of a player
+     *
+     * @param name player name
+     * @return     player file
+     */
+    private File getFile(String name) {
+        String lower = name.toLowerCase();
+        String shard = Integer.toHexString(0x100 | (lower.hashCode() & 0xff)).substring(1);
+        return new File(new File(folder, shard), lower + EXTENSION);
+    }
+}
@@ -1,12 +1,11 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.EmbedData;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.List;
 import java.util.Random;
@@ -24,33 +23,28 @@ public class ChanceMechanic implements IMechanic {
     /**
      * Grants a temporary damage bonus to the targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if was able to use
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         if (targets.isEmpty()) return false;
 
         // Get attributes
-        int level = data.getSkillLevel(skill.getName());
-        double chance = skill.getAttribute(CHANCE, target, level);
+        double chance = context.getAttribute(CHANCE, target);
 
         // Roll a chance
         if (random.nextDouble() < chance / 100) {
 
             // Apply the embedded effects
-            EmbedData embedData = new EmbedData(player, data, skill);
-            skill.beginUsage();
+            EmbedData embedData = new EmbedData(context);
             for (LivingEntity t : targets) {
                 embedData.resolveNonTarget(t.getLocation());
                 embedData.resolveTarget(t);
             }
-            skill.stopUsage();
         }
 
         return true;
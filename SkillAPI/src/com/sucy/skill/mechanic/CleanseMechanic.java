@@ -6,8 +6,8 @@ import com.sucy.skill.api.Status;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
 import java.util.List;
@@ -27,18 +27,17 @@ public class CleanseMechanic implements IMechanic {
     /**
      * Cleanses statuses from each target
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if cleansed any statuses, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         // Get the attributes
-        int cleanse = skill.getValue(CLEANSE);
+        int cleanse = context.getValue(CLEANSE);
 
         boolean worked = false;
 
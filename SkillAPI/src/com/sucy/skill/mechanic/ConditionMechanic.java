@@ -7,8 +7,8 @@ import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.EmbedData;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
 import java.util.List;
@@ -70,24 +70,22 @@ public class ConditionMechanic implements IMechanic {
     /**
      * Grants a temporary damage bonus to the targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if was able to use
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         if (targets.isEmpty()) return false;
 
         // Get attributes
-        int statement = skill.getValue(CONDITION);
+        int statement = context.getValue(CONDITION);
 
         // Prepare the embed data in case it needs to be used
-        EmbedData embedData = new EmbedData(player, data, skill);
-        skill.beginUsage();
+        EmbedData embedData = new EmbedData(context);
 
         // Loop through each target
         boolean worked = false;
@@ -162,7 +160,6 @@ public class ConditionMechanic implements IMechanic {
                 worked = true;
             }
         }
-        skill.stopUsage();
 
         return worked;
     }
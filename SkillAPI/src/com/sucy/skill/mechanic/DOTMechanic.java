@@ -4,6 +4,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.util.effects.DOT;
 import com.sucy.skill.api.util.effects.DOTHelper;
 import com.sucy.skill.api.util.effects.DOTSet;
@@ -26,15 +27,15 @@ public class DOTMechanic implements IMechanic {
     /**
      * Deals damage to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
+        PlayerSkills data = context.getData();
 
         // Requires a target
         if (targets.size() == 0) {
@@ -42,16 +43,15 @@ public class DOTMechanic implements IMechanic {
         }
 
         DOTHelper helper = data.getAPI().getDOTHelper();
-        int level = data.getSkillLevel(skill.getName());
-        double damage = skill.getAttribute(DAMAGE, target, level);
-        int duration = (int)(skill.getAttribute(DURATION, target, level) * 20);
-        int frequency = (int)(skill.getAttribute(FREQUENCY, target, level) * 20);
-        boolean lethal = skill.getValue(LETHAL) != 1;
+        double damage = context.getAttribute(DAMAGE, target);
+        int duration = (int)(context.getAttribute(DURATION, target) * 20);
+        int frequency = (int)(context.getAttribute(FREQUENCY, target) * 20);
+        boolean lethal = context.getValue(LETHAL) != 1;
 
         // Apply a DOT to all targets
         for (LivingEntity entity : targets) {
             DOTSet set = helper.getDOTSet(entity);
-            set.addEffect(skill.getName(), new DOT(skill, player, duration, damage, frequency, lethal));
+            set.addEffect(context.getSkill().getName(), new DOT(context.getSkill(), player, duration, damage, frequency, lethal));
         }
 
         return true;
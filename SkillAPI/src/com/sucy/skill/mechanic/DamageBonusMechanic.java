@@ -5,8 +5,8 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.List;
 
@@ -22,23 +22,21 @@ public class DamageBonusMechanic implements IMechanic {
     /**
      * Grants a temporary damage bonus to the targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if was able to use
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         // Requires a target
         if (targets.size() == 0) return false;
 
         // Get attributes
-        int level = data.getSkillLevel(skill.getName());
-        int bonus = (int)skill.getAttribute(BONUS, target, level);
-        double duration = skill.getAttribute(DURATION, target, level);
+        int bonus = (int)context.getAttribute(BONUS, target);
+        double duration = context.getAttribute(DURATION, target);
 
         // Add damage modifiers
         for (LivingEntity entity : targets) {
@@ -1,10 +1,10 @@
 package com.sucy.skill.mechanic;
 
 import com.sucy.skill.BukkitHelper;
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
@@ -20,20 +20,18 @@ public class DamageMechanic implements IMechanic {
     /**
      * Deals damage to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Damage all targets
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        double damage = skill.getAttribute(DAMAGE, target, level);
+        double damage = context.getAttribute(DAMAGE, target);
         for (LivingEntity t : targets) {
             double prevHealth = t.getHealth();
             BukkitHelper.damageManually(t, player, damage);
@@ -1,6 +1,5 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
@@ -8,6 +7,7 @@ import com.sucy.skill.api.dynamic.TimedEmbedData;
 import com.sucy.skill.api.event.AttackType;
 import com.sucy.skill.api.event.PlayerOnDamagedEvent;
 import com.sucy.skill.api.event.PlayerOnHitEvent;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -49,23 +49,21 @@ public class DefenseModifierMechanic implements IMechanic, Listener {
     /**
      * Grants a temporary damage bonus to the targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if was able to use
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Add the player to the map
-        int level = data.getSkillLevel(skill.getName());
-        int duration = (int)(skill.getAttribute(DURATION, target, level) * 1000);
-        int attacks = (int)skill.getAttribute(ATTACKS, target, level);
-        int chance = skill.hasAttribute(CHANCE, target) ? (int)skill.getAttribute(CHANCE, target, level) : 100;
+        int duration = (int)(context.getAttribute(DURATION, target) * 1000);
+        int attacks = (int)context.getAttribute(ATTACKS, target);
+        int chance = context.hasAttribute(CHANCE, target) ? (int)context.getAttribute(CHANCE, target) : 100;
         for (LivingEntity t : targets) {
-            TimedEmbedData embedData = new TimedEmbedData(player, data, skill, System.currentTimeMillis() + duration);
+            TimedEmbedData embedData = new TimedEmbedData(context, System.currentTimeMillis() + duration);
             embedData.setValue(ATTACKS, attacks);
             embedData.setValue(CHANCE, chance);
             activeEffects.put(t.getEntityId(), embedData);
@@ -111,10 +109,8 @@ public class DefenseModifierMechanic implements IMechanic, Listener {
         }
 
         // Apply the embedded effects
-        data.getSkill().beginUsage();
         data.resolveNonTarget(event.getAttacker().getLocation());
         data.resolveTarget(event.getAttacker());
-        data.getSkill().stopUsage();
     }
 
     /**
@@ -5,9 +5,10 @@ import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.EmbedData;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,35 +22,34 @@ public class DelayMechanic implements IMechanic {
     /**
      * Grants a temporary damage bonus to the targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if was able to use
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, final List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         // Must have a target
         if (targets.isEmpty()) return false;
 
+        // The list is reused once this returns
+        final List<LivingEntity> delayed = new ArrayList<LivingEntity>(targets);
+
         // Get attributes
-        final EmbedData embedData = new EmbedData(player, data, skill);
-        final int level = data.getSkillLevel(skill.getName());
-        final int delay = (int)(skill.getAttribute(DELAY, target, level) * 20);
+        final EmbedData embedData = new EmbedData(context);
+        final int delay = (int)(context.getAttribute(DELAY, target) * 20);
 
         // Run the effect later
         data.getAPI().getServer().getScheduler().runTaskLater(data.getAPI(), new Runnable() {
             @Override
             public void run() {
                 // Apply the embedded effects
-                embedData.getSkill().beginUsage();
-                for (LivingEntity t : targets) {
+                for (LivingEntity t : delayed) {
                     embedData.resolveNonTarget(t.getLocation());
                     embedData.resolveTarget(t);
                 }
-                embedData.getSkill().stopUsage();
             }
         }, delay);
 
@@ -1,11 +1,10 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.List;
 
@@ -19,21 +18,18 @@ public class FireMechanic implements IMechanic {
     /**
      * Ignites all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         if (targets.size() == 0) return false;
 
         // Damage all targets
-        int level = data.getSkillLevel(skill.getName());
-        int duration = (int)(skill.getAttribute(DURATION, target, level) * 20);
+        int duration = (int)(context.getAttribute(DURATION, target) * 20);
         for (LivingEntity t : targets) {
             t.setFireTicks(duration);
         }
@@ -5,6 +5,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
@@ -20,24 +21,23 @@ public class HealMechanic implements IMechanic {
     /**
      * Heals all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
+        PlayerSkills data = context.getData();
 
         // Damage all targets
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        double amount = skill.getAttribute(HEAL, target, level);
+        double amount = context.getAttribute(HEAL, target);
         for (LivingEntity t : targets) {
             double prevHealth = t.getHealth();
             if (t instanceof Player) {
-                data.getAPI().getPlayer(((Player) t).getName()).heal(player, amount, skill.getName());
+                data.getAPI().getPlayer((Player) t).heal(player, amount, context.getSkill().getName());
                 worked = true;
             }
             else {
@@ -5,6 +5,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.util.effects.TimedEffect;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -25,25 +26,23 @@ public class HealthMechanic implements IMechanic {
     /**
      * Grants bonus health to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         // Grant health to all targets
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        int amount = (int)skill.getAttribute(HEALTH, target, level);
+        int amount = (int)context.getAttribute(HEALTH, target);
         for (LivingEntity t : targets) {
 
             // Players
             if (t instanceof Player) {
-                data.getAPI().getPlayer(((Player) t).getName()).addMaxHealth(amount);
+                data.getAPI().getPlayer((Player) t).addMaxHealth(amount);
             }
 
             // Non-players
@@ -1,9 +1,9 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
@@ -22,21 +22,19 @@ public class LaunchMechanic implements IMechanic {
     /**
      * Forces all targets to dash
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Get attributes
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        double vSpeed = skill.getAttribute(V_SPEED, target, level);
-        double hSpeed = skill.getAttribute(H_SPEED, target, level);
+        double vSpeed = context.getAttribute(V_SPEED, target);
+        double hSpeed = context.getAttribute(H_SPEED, target);
 
         // Make all targets dash forward
         for (LivingEntity t : targets) {
@@ -5,6 +5,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
@@ -22,24 +23,22 @@ public class ManaDamageMechanic implements IMechanic {
     /**
      * Damages targets based on missing mana
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Change mana of all player targets
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        double amount = skill.getAttribute(MANA, target, level);
-        int damageType = skill.getValue(TYPE);
+        double amount = context.getAttribute(MANA, target);
+        int damageType = context.getValue(TYPE);
         for (LivingEntity t : targets) {
             if (t instanceof Player) {
-                PlayerSkills p = skill.getAPI().getPlayer(((Player) t).getName());
+                PlayerSkills p = context.getSkill().getAPI().getPlayer((Player) t);
                 if (!p.hasClass()) continue;
                 int maxMana = p.getMaxMana();
                 double damage;
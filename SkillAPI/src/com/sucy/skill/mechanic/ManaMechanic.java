@@ -4,6 +4,7 @@ import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 
@@ -19,23 +20,21 @@ public class ManaMechanic implements IMechanic {
     /**
      * Gives mana to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Change mana of all player targets
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        int amount = (int)skill.getAttribute(MANA, target, level);
+        int amount = (int)context.getAttribute(MANA, target);
         for (LivingEntity t : targets) {
             if (t instanceof Player) {
-                PlayerSkills p = skill.getAPI().getPlayer(((Player) t).getName());
+                PlayerSkills p = context.getSkill().getAPI().getPlayer((Player) t);
                 int prevMana = p.getMana();
                 p.gainMana(amount);
                 worked = worked || (p.getMana() != prevMana);
@@ -1,14 +1,13 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.util.effects.Direction;
 import com.sucy.skill.api.util.effects.ParticleHelper;
 import com.sucy.skill.api.util.effects.ParticleType;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.HashMap;
 import java.util.List;
@@ -30,27 +29,25 @@ public class ParticleMechanic implements IMechanic {
     /**
      * Damages targets based on missing mana
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         // Requires a target
         if (targets.size() == 0) return false;
 
         // Get values
-        int level = data.getSkillLevel(skill.getName());
-        int amount = skill.getValue(AMOUNT_BASE) + skill.getValue(AMOUNT_BONUS) * (level - 1);
-        int radius = skill.getValue(RADIUS_BASE) + skill.getValue(RADIUS_BONUS) * (level - 1);
-        int particle = skill.getValue(PARTICLE);
-        int area = skill.getValue(AREA);
+        int level = context.getLevel();
+        int amount = context.getValue(AMOUNT_BASE) + context.getValue(AMOUNT_BONUS) * (level - 1);
+        int radius = context.getValue(RADIUS_BASE) + context.getValue(RADIUS_BONUS) * (level - 1);
+        int particle = context.getValue(PARTICLE);
+        int area = context.getValue(AREA);
         ParticleType type;
-        int value = skill.getValue(PARTICLE_DATA);
+        int value = context.getValue(PARTICLE_DATA);
         if (PARTICLES.containsKey(particle)) type = PARTICLES.get(particle);
         else type = PARTICLES.get(0);
 
@@ -1,10 +1,10 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.EmbedData;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.util.effects.ParticleType;
 import com.sucy.skill.api.util.effects.ProjectileHelper;
 import org.bukkit.Bukkit;
@@ -44,25 +44,23 @@ public class ParticleProjectileMechanic implements IMechanic, Listener {
     /**
      * Launches projectiles from a source
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Change mana of all player targets
-        int level = data.getSkillLevel(skill.getName());
-        double speed = skill.getAttribute(SPEED, target, level);
-        double damage = skill.getAttribute(DAMAGE, target, level);
-        int amount = (int)skill.getAttribute(QUANTITY, target, level);
-        int angle = (int)skill.getAttribute(ANGLE, target, level);
-        int spread = skill.getValue(SPREAD);
-        int value = skill.getValue(DATA);
-        int particleID = skill.getValue(PARTICLE);
+        double speed = context.getAttribute(SPEED, target);
+        double damage = context.getAttribute(DAMAGE, target);
+        int amount = (int)context.getAttribute(QUANTITY, target);
+        int angle = (int)context.getAttribute(ANGLE, target);
+        int spread = context.getValue(SPREAD);
+        int value = context.getValue(DATA);
+        int particleID = context.getValue(PARTICLE);
         ParticleType type;
         if (PARTICLES.containsKey(particleID)) type = PARTICLES.get(particleID);
         else type = ParticleType.SMOKE;
@@ -88,9 +86,7 @@ public class ParticleProjectileMechanic implements IMechanic, Listener {
         }, 1);
         if (projectiles.containsKey(event.getEntity().getEntityId())) {
             EmbedData data = projectiles.get(event.getEntity().getEntityId());
-            data.getSkill().beginUsage();
             data.resolveNonTarget(event.getEntity().getLocation());
-            data.getSkill().stopUsage();
         }
     }
 
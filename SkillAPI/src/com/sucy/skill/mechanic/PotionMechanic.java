@@ -1,12 +1,11 @@
 package com.sucy.skill.mechanic;
 
 import com.sucy.skill.BukkitHelper;
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
@@ -26,21 +25,18 @@ public class PotionMechanic implements IMechanic {
     /**
      * Applies potion effects to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         // Get attributes
-        int level = data.getSkillLevel(skill.getName());
-        PotionEffectType potionType = PotionEffectType.values()[skill.getValue(TYPE)];
-        int duration = (int)(skill.getAttribute(DURATION, target, level) * 20);
-        int tier = (int)skill.getAttribute(TIER, target, level);
+        PotionEffectType potionType = PotionEffectType.values()[context.getValue(TYPE)];
+        int duration = (int)(context.getAttribute(DURATION, target) * 20);
+        int tier = (int)context.getAttribute(TIER, target);
 
         // Must have a target
         if (targets.size() == 0) return false;
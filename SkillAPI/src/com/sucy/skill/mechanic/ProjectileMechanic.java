@@ -1,10 +1,10 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.EmbedData;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import com.sucy.skill.api.util.effects.ProjectileHelper;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -44,29 +44,27 @@ public class ProjectileMechanic implements IMechanic, Listener {
     /**
      * Launches projectiles from a source
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        Player player = context.getCaster();
 
         // Change mana of all player targets
-        int level = data.getSkillLevel(skill.getName());
-        double speed = skill.getAttribute(SPEED, target, level);
-        int amount = (int)skill.getAttribute(QUANTITY, target, level);
-        int angle = (int)skill.getAttribute(ANGLE, target, level);
-        int spread = skill.getValue(SPREAD);
-        int projectileId = skill.getValue(PROJECTILE);
+        double speed = context.getAttribute(SPEED, target);
+        int amount = (int)context.getAttribute(QUANTITY, target);
+        int angle = (int)context.getAttribute(ANGLE, target);
+        int spread = context.getValue(SPREAD);
+        int projectileId = context.getValue(PROJECTILE);
         Class<? extends Projectile> projectile;
         if (PROJECTILES.containsKey(projectileId)) projectile = PROJECTILES.get(projectileId);
         else projectile = Arrow.class;
 
         // Using projectiles
-        int removed = skill.getValue(USE_PROJECTILE);
+        int removed = context.getValue(USE_PROJECTILE);
         if (removed > 0) {
             Material mat;
             if (!MATERIALS.containsKey(projectileId)) mat = MATERIALS.get(0);
@@ -83,9 +81,9 @@ public class ProjectileMechanic implements IMechanic, Listener {
         else list = ProjectileHelper.launchCircle(player, projectile, amount, angle, speed);
 
         // Applying embed data
-        if (skill.hasEmbedEffects()) {
+        if (((DynamicSkill)context.getSkill()).hasEmbedEffects()) {
             for (int id : list) {
-                projectiles.put(id, new EmbedData(player, data, skill));
+                projectiles.put(id, new EmbedData(context));
             }
         }
 
@@ -107,9 +105,7 @@ public class ProjectileMechanic implements IMechanic, Listener {
         }, 1);
         if (projectiles.containsKey(event.getEntity().getEntityId())) {
             EmbedData data = projectiles.get(event.getEntity().getEntityId());
-            data.getSkill().beginUsage();
             data.resolveNonTarget(event.getEntity().getLocation());
-            data.getSkill().stopUsage();
         }
     }
 
@@ -123,9 +119,7 @@ public class ProjectileMechanic implements IMechanic, Listener {
 
         if (projectiles.containsKey(event.getDamager().getEntityId()) && event.getEntity() instanceof LivingEntity) {
             EmbedData data = projectiles.get(event.getDamager().getEntityId());
-            data.getSkill().beginUsage();
             data.resolveTarget((LivingEntity)event.getEntity());
-            data.getSkill().stopUsage();
         }
     }
 
@@ -1,14 +1,13 @@
 package com.sucy.skill.mechanic;
 
 import com.sucy.skill.BukkitHelper;
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.Bukkit;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 
 import java.util.HashMap;
 import java.util.List;
@@ -26,31 +25,29 @@ public class SoundMechanic implements IMechanic {
     /**
      * Damages targets based on missing mana
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         // Requires a target
         if (targets.size() == 0) return false;
 
         // Sound
         Sound sound;
-        int soundIndex = skill.getValue(SOUND);
+        int soundIndex = context.getValue(SOUND);
         if (SOUNDS.containsKey(soundIndex)) sound = SOUNDS.get(soundIndex);
         else sound = SOUNDS.get(0);
 
         // Volume
-        float volume = skill.getValue(VOLUME) / 100.0f;
+        float volume = context.getValue(VOLUME) / 100.0f;
         volume = Math.max(Math.min(volume, 1.0f), 0.0f);
 
         // Pitch
-        float pitch = (3 * skill.getValue(PITCH) + 500) / 400.0f;
+        float pitch = (3 * context.getValue(PITCH) + 500) / 400.0f;
         pitch = Math.min(Math.max(pitch, 0.5f), 2.0f);
 
         // Play the sound at each target
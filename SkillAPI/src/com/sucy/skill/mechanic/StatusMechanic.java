@@ -5,6 +5,7 @@ import com.sucy.skill.api.Status;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
@@ -25,26 +26,24 @@ public class StatusMechanic implements IMechanic {
     /**
      * Applies a status to all targets
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
+        PlayerSkills data = context.getData();
 
         // Get attributes
-        int level = data.getSkillLevel(skill.getName());
-        Status status = STATUSES.get(skill.getValue(TYPE));
-        double duration = skill.getAttribute(LENGTH, target, level);
+        Status status = STATUSES.get(context.getValue(TYPE));
+        double duration = context.getAttribute(LENGTH, target);
 
         // Apply  potion effect to all
         boolean worked = false;
         for (LivingEntity t : targets) {
             if (t instanceof Player) {
-                data.getAPI().getPlayer(((Player) t).getName()).applyStatus(status, (int)(duration * 1000));
+                data.getAPI().getPlayer((Player) t).applyStatus(status, (int)(duration * 1000));
                 worked = true;
             }
             else if (status == Status.ROOT || status == Status.STUN) {
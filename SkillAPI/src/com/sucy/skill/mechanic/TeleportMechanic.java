@@ -1,13 +1,12 @@
 package com.sucy.skill.mechanic;
 
-import com.sucy.skill.api.PlayerSkills;
 import com.sucy.skill.api.dynamic.DynamicSkill;
 import com.sucy.skill.api.dynamic.IMechanic;
 import com.sucy.skill.api.dynamic.Target;
+import com.sucy.skill.api.skill.CastContext;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
 import java.util.List;
@@ -25,26 +24,23 @@ public class TeleportMechanic implements IMechanic {
     /**
      * Forces all targets to dash
      *
-     * @param player  player using the skill
-     * @param data    data of the player using the skill
-     * @param skill   skill being used
+     * @param context context of the skill being used
      * @param target  target type of the skill
      * @param targets targets for the effects
      * @return        true if there were targets, false otherwise
      */
     @Override
-    public boolean resolve(Player player, PlayerSkills data, DynamicSkill skill, Target target, List<LivingEntity> targets) {
+    public boolean resolve(CastContext context, Target target, List<LivingEntity> targets) {
 
         // Get attributes
         boolean worked = false;
-        int level = data.getSkillLevel(skill.getName());
-        int vDistance = (int)skill.getAttribute(V_DISTANCE, target, level);
-        int hDistance = (int)skill.getAttribute(H_DISTANCE, target, level);
+        int vDistance = (int)context.getAttribute(V_DISTANCE, target);
+        int hDistance = (int)context.getAttribute(H_DISTANCE, target);
 
         // Make all targets teleport
 
         // Not through walls
-        if (skill.getValue(THROUGH_WALLS) == 1) {
+        if (context.getValue(THROUGH_WALLS) == 1) {
             for (LivingEntity t : targets) {
                 if (t.getLocation().getBlock().getType() != Material.AIR) continue;
                 Vector vec = t.getLocation().getDirection();
@@ -0,0 +1,32 @@
+package com.sucy.skill.task;
+
+import com.sucy.skill.SkillAPI;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * <p>Saves the data of players that changed over time</p>
+ * <p>This task is run by the API and you should not
+ * use this task yourself</p>
+ */
+public class AutoSaveTask extends BukkitRunnable {
+
+    final SkillAPI plugin;
+
+    /**
+     * Constructor
+     *
+     * @param plugin      plugin reference
+     * @param freqSeconds interval in seconds between saves
+     */
+    public AutoSaveTask(SkillAPI plugin, int freqSeconds) {
+        this.plugin = plugin;
+        runTaskTimer(plugin, freqSeconds * 20, freqSeconds * 20);
+    }
+
+    /**
+     * Queues the data of all changed players to be saved
+     */
+    public void run() {
+        plugin.savePlayerData();
+    }
+}
@@ -0,0 +1,37 @@
+package com.sucy.skill.task;
+
+import com.sucy.skill.SkillAPI;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * <p>Counts server ticks so timing checks don't need the system clock</p>
+ * <p>This task is run by the API and you should not
+ * use this task yourself</p>
+ */
+public class TickCounter extends BukkitRunnable {
+
+    private int tick;
+
+    /**
+     * Constructor
+     *
+     * @param plugin plugin reference
+     */
+    public TickCounter(SkillAPI plugin) {
+        runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * @return number of ticks since the counter started
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Counts a tick
+     */
+    public void run() {
+        tick++;
+    }
+}
@@ -17,6 +17,7 @@ import java.util.*;
 public abstract class SkillTree implements InventoryHolder {
 
     protected final HashMap<Integer, ClassSkill> skillSlots = new HashMap<Integer, ClassSkill>();
+    private final HashMap<ClassSkill, List<Integer>> dependentSlots = new HashMap<ClassSkill, List<Integer>>();
     protected final SkillAPI api;
     protected final CustomClass tree;
     protected int height;
@@ -41,7 +42,7 @@ public abstract class SkillTree implements InventoryHolder {
         Inventory inv = api.getServer().createInventory(this, height * 9, tree.getPrefix());
 
         for (Map.Entry<Integer, ClassSkill> entry : skillSlots.entrySet()) {
-            inv.setItem(entry.getKey(), entry.getValue().getIndicator(player, player.getSkillLevel(entry.getValue().getName())));
+            inv.setItem(entry.getKey(), entry.getValue().getIndicator(player, player.getSkillLevel(entry.getValue())));
         }
 
         return inv;
@@ -69,6 +70,29 @@ public abstract class SkillTree implements InventoryHolder {
 
         // Cannot be higher than 6
         if (height > 6) throw new SkillTreeException("Error generating the skill tree: " + tree.getName() + " - too large of a tree!");
+
+        // Find the slots that show each skill and the skills requiring it
+        dependentSlots.clear();
+        for (Map.Entry<Integer, ClassSkill> entry : skillSlots.entrySet()) {
+            addDependentSlot(entry.getValue(), entry.getKey());
+            ClassSkill required = api.getSkill(entry.getValue().getSkillReq());
+            if (required != null) addDependentSlot(required, entry.getKey());
+        }
+    }
+
+    /**
+     * Marks a slot to be updated when a skill changes
+     *
+     * @param skill skill that changes
+     * @param slot  slot to update
+     */
+    private void addDependentSlot(ClassSkill skill, int slot) {
+        List<Integer> slots = dependentSlots.get(skill);
+        if (slots == null) {
+            slots = new ArrayList<Integer>();
+            dependentSlots.put(skill, slots);
+        }
+        slots.add(slot);
     }
 
     /**
@@ -86,7 +110,44 @@ public abstract class SkillTree implements InventoryHolder {
      */
     public void update(Inventory view, PlayerSkills player) {
         for (Map.Entry<Integer, ClassSkill> skills : skillSlots.entrySet()) {
-            view.setItem(skills.getKey(), skills.getValue().getIndicator(player, player.getSkillLevel(skills.getValue().getName())));
+            view.setItem(skills.getKey(), skills.getValue().getIndicator(player, player.getSkillLevel(skills.getValue())));
+        }
+    }
+
+    /**
+     * <p>Updates the view after a skill was upgraded or downgraded</p>
+     * <p>Only the slots that look different are updated. Those are the
+     * changed skill, the skills requiring it, and the skills whose skill
+     * point requirement was met before but isn't now or the other way
+     * around.</p>
+     *
+     * @param view           inventory view
+     * @param player         player
+     * @param changed        skill that was upgraded or downgraded
+     * @param previousPoints skill points the player had before the change
+     */
+    public void update(Inventory view, PlayerSkills player, ClassSkill changed, int previousPoints) {
+
+        // Slots of the skill and the skills requiring it
+        List<Integer> dependents = dependentSlots.get(changed);
+        if (dependents != null) {
+            for (int slot : dependents) {
+                ClassSkill skill = skillSlots.get(slot);
+                view.setItem(slot, skill.getIndicator(player, player.getSkillLevel(skill)));
+            }
+        }
+
+        // Slots of skills whose point requirement changed
+        int points = player.getPoints();
+        for (Map.Entry<Integer, ClassSkill> entry : skillSlots.entrySet()) {
+            if (dependents != null && dependents.contains(entry.getKey())) continue;
+
+            ClassSkill skill = entry.getValue();
+            int level = player.getSkillLevel(skill);
+            int cost = (int)skill.getAttribute(SkillAttribute.COST_ID, level + 1);
+            if ((previousPoints >= cost) != (points >= cost)) {
+                view.setItem(entry.getKey(), skill.getIndicator(player, level));
+            }
         }
     }
 